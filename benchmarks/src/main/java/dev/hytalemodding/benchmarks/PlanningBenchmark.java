@@ -0,0 +1,68 @@
+package dev.hytalemodding.benchmarks;
+
+import dev.hytalemodding.planning.ChunkArea;
+import dev.hytalemodding.planning.ChunkRect;
+import dev.hytalemodding.planning.ProtectionPlanner;
+import dev.hytalemodding.planning.WorkArea;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Protect-mode planning as RCPage does it: every base keeps its buffer and
+// the work area reaches `radius` chunks past it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PlanningBenchmark {
+
+    @Param({"1", "10", "100", "500"})
+    public int bases;
+
+    @Param({"8", "32", "128"})
+    public int radius;
+
+    @Param({"2"})
+    public int buffer;
+
+    private List<ChunkRect> selections;
+    private ChunkArea protectedArea;
+    private WorkArea workArea;
+
+    @Setup
+    public void setup() {
+        // Bases scattered like a busy server: close enough for work areas to overlap
+        Random random = new Random(42);
+        int spread = (int) Math.sqrt(bases) * 48;
+
+        selections = new ArrayList<>(bases);
+        for (int i = 0; i < bases; i++) {
+            int chunkX = random.nextInt(2 * spread + 1) - spread;
+            int chunkZ = random.nextInt(2 * spread + 1) - spread;
+            selections.add(ChunkRect.around(chunkX, chunkZ, buffer));
+        }
+
+        protectedArea = ChunkArea.of(selections);
+        workArea = WorkArea.around(protectedArea.rects(), radius);
+    }
+
+    @Benchmark
+    public ChunkArea selectionArea() {
+        return ChunkArea.of(selections);
+    }
+
+    @Benchmark
+    public long count() {
+        return new ProtectionPlanner(protectedArea.rects(), workArea).count();
+    }
+
+    @Benchmark
+    public long[] plan() {
+        return new ProtectionPlanner(protectedArea.rects(), workArea).plan();
+    }
+}
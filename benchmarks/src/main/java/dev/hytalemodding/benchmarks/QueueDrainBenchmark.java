@@ -0,0 +1,105 @@
+package dev.hytalemodding.benchmarks;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import dev.hytalemodding.regen.PlayerPriority;
+import dev.hytalemodding.regen.PlayerProximity;
+import dev.hytalemodding.regen.RegenJob;
+import dev.hytalemodding.regen.TickBudget;
+import dev.hytalemodding.world.chunk.ChunkOrder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// RegenJob.process against a backend whose deletes and flushes take time.
+// `tick` samples single world ticks (see the p0.99 line); `drain` runs a
+// whole job to completion.
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueDrainBenchmark {
+
+    @Param({"128"})
+    public int side; // Targets a side x side square of chunks
+
+    @Param({"50", "500"})
+    public int saverLatencyMicros;
+
+    @Param({"200"})
+    public int flushMicros;
+
+    @Param({"REGION", "MORTON"})
+    public ChunkOrder order;
+
+    private StubChunkBackend backend;
+    private long[] targets;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        backend = new StubChunkBackend(saverLatencyMicros, flushMicros);
+
+        targets = new long[side * side];
+        int count = 0;
+        for (int z = 0; z < side; z++) {
+            for (int x = 0; x < side; x++) {
+                targets[count++] = ChunkUtil.indexChunk(x, z);
+            }
+        }
+    }
+
+    // Job and budget for sampling ticks; a drained job is replaced outside the measured time
+    @State(Scope.Thread)
+    public static class Ticking {
+        private TickBudget budget;
+        private RegenJob job;
+
+        @Setup(Level.Iteration)
+        public void newBudget() {
+            budget = new TickBudget();
+        }
+
+        @Setup(Level.Invocation)
+        public void ensureJob(QueueDrainBenchmark benchmark) {
+            if (job == null || job.isQueueEmpty()) {
+                if (job != null) job.finish().join();
+                job = RegenJob.detached(benchmark.backend, benchmark.targets, benchmark.order, PlayerPriority.IGNORE);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (job != null) job.finish().join();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int tick(Ticking ticking) {
+        ticking.budget.beginTick();
+        ticking.job.process(ticking.budget, ticking.budget.batchSize(), PlayerProximity.NONE);
+        return ticking.job.getSubmitted();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public long drain() {
+        RegenJob drained = RegenJob.detached(backend, targets, order, PlayerPriority.IGNORE);
+        TickBudget drainBudget = new TickBudget();
+
+        while (!drained.isQueueEmpty()) {
+            int before = drained.getSubmitted();
+            drainBudget.beginTick();
+            drained.process(drainBudget, drainBudget.batchSize(), PlayerProximity.NONE);
+
+            // The pipeline is full: give the saver a moment instead of spinning
+            if (drained.getSubmitted() == before) LockSupport.parkNanos(50_000);
+        }
+        drained.finish().join();
+        return backend.getRemoved();
+    }
+}
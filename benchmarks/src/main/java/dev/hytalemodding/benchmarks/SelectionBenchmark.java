@@ -0,0 +1,96 @@
+package dev.hytalemodding.benchmarks;
+
+import dev.hytalemodding.managers.SelectionManager;
+import dev.hytalemodding.planning.Selection;
+import dev.hytalemodding.world.pos.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// SelectionManager with one player holding many saved bases. Persistence is
+// off (no init), so only the in-memory structures are measured.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectionBenchmark {
+
+    private static final int PROBES = 4096; // Power of two
+
+    @Param({"10000", "50000"})
+    public int entries;
+
+    private UUID player;
+    private BlockPos[] origins;
+    private int[] probeX;
+    private int[] probeZ;
+    private int next;
+
+    @Setup
+    public void setup() {
+        player = UUID.randomUUID();
+        Random random = new Random(42);
+
+        // A grid of bases four chunks apart, with buffers of 0..3 chunks so many of them overlap
+        int columns = (int) Math.ceil(Math.sqrt(entries));
+        origins = new BlockPos[entries];
+        for (int i = 0; i < entries; i++) {
+            int blockX = (i % columns) * 4 * 32 + 16;
+            int blockZ = (i / columns) * 4 * 32 + 16;
+            SelectionManager.addSelection(player, blockX, blockZ, i % 4);
+            origins[i] = new BlockPos(blockX, blockZ);
+        }
+
+        probeX = new int[PROBES];
+        probeZ = new int[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probeX[i] = random.nextInt(columns * 4 + 8) - 4;
+            probeZ[i] = random.nextInt(columns * 4 + 8) - 4;
+        }
+
+        // Build the merged area once so lookups measure the steady state
+        SelectionManager.getArea(player);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SelectionManager.clearSelections(player);
+    }
+
+    @Benchmark
+    public boolean isOrigin() {
+        return SelectionManager.isOrigin(player, origins[next++ % origins.length]);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        int i = next++ & (PROBES - 1);
+        return SelectionManager.contains(player, probeX[i], probeZ[i]);
+    }
+
+    // Saving a new base and removing it again keeps the size constant
+    @Benchmark
+    public Selection addRemove() {
+        Selection selection = SelectionManager.addSelection(player, -1_000_000, next++ & 0xFFFF, 2);
+        SelectionManager.removeSelection(player, selection.id());
+        return selection;
+    }
+
+    // A change followed by a lookup pays for rebuilding the merged area
+    @Benchmark
+    public boolean addRemoveContains() {
+        addRemove();
+        return contains();
+    }
+
+    // What every page refresh copies
+    @Benchmark
+    public List<Selection> getSelections() {
+        return SelectionManager.getSelections(player);
+    }
+}
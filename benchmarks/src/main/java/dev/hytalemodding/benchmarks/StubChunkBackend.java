@@ -0,0 +1,78 @@
+package dev.hytalemodding.benchmarks;
+
+import dev.hytalemodding.regen.ChunkBackend;
+import dev.hytalemodding.world.chunk.Regions;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Stand-in for a world's ChunkStore and IChunkSaver: every delete completes
+// after a fixed delay, like a saver thread working through its queue, and a
+// flush blocks the caller for a fixed time.
+public class StubChunkBackend implements ChunkBackend {
+
+    private final Executor saver;
+    private final long flushNanos;
+    private final LongAdder removed = new LongAdder();
+
+    public StubChunkBackend(long removeMicros, long flushMicros) {
+        this.saver = CompletableFuture.delayedExecutor(removeMicros, TimeUnit.MICROSECONDS);
+        this.flushNanos = TimeUnit.MICROSECONDS.toNanos(flushMicros);
+    }
+
+    @Override
+    public CompletableFuture<Void> load(long chunkIndex) {
+        return CompletableFuture.runAsync(() -> {}, saver);
+    }
+
+    @Override
+    public void unload(long chunkIndex) {
+        // Nothing is loaded
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(int chunkX, int chunkZ) {
+        return CompletableFuture.runAsync(removed::increment, saver);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> read(int chunkX, int chunkZ) {
+        return CompletableFuture.supplyAsync(() -> new byte[0], saver);
+    }
+
+    @Override
+    public CompletableFuture<Void> write(int chunkX, int chunkZ, byte[] data) {
+        return CompletableFuture.runAsync(() -> {}, saver);
+    }
+
+    @Override
+    public void flush() {
+        LockSupport.parkNanos(flushNanos);
+    }
+
+    @Override
+    public boolean isLoaded(long chunkIndex) {
+        return false;
+    }
+
+    @Override
+    public boolean hasRegion(int regionX, int regionZ) {
+        return true;
+    }
+
+    @Override
+    public long[] storedChunks(int regionX, int regionZ) {
+        // Every chunk is stored, as hasRegion says
+        long[] all = new long[Regions.CHUNKS_PER_REGION / 64];
+        Arrays.fill(all, -1L);
+        return all;
+    }
+
+    public long getRemoved() {
+        return removed.sum();
+    }
+}
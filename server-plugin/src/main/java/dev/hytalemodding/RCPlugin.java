@@ -3,6 +3,12 @@ package dev.hytalemodding;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import dev.hytalemodding.commands.RCCommand;
+import dev.hytalemodding.managers.ChunkRegenManager;
+import dev.hytalemodding.managers.ProgressManager;
+import dev.hytalemodding.managers.SelectionManager;
+import dev.hytalemodding.metrics.RegenMetrics;
+import dev.hytalemodding.regen.ChunkSnapshot;
+import dev.hytalemodding.regen.RegenJournal;
 
 import javax.annotation.Nonnull;
 
@@ -16,5 +22,33 @@ public class RCPlugin extends JavaPlugin {
     protected void setup() {
         // Register the follow commands: /rechunk
         this.getCommandRegistry().registerCommand(new RCCommand());
+
+        // Regeneration jobs are journaled here so they survive restarts
+        RegenJournal.setDirectory(this.getDataDirectory().resolve("jobs"));
+
+        // Copies of removed chunks, for jobs started with a snapshot
+        ChunkSnapshot.setDirectory(this.getDataDirectory().resolve("snapshots"));
+
+        // Saved coordinates are kept per player and loaded on first use
+        SelectionManager.init(this.getDataDirectory().resolve("selections"));
+
+        // Throughput, latencies and errors for JMX clients such as JConsole
+        RegenMetrics.register();
+    }
+
+    @Override
+    protected void start() {
+        // Worlds are loaded by now: resume whatever was interrupted
+        ChunkRegenManager.resumePending();
+
+        // Periodic progress of running jobs for their owners and /rechunk watch
+        ProgressManager.start();
+    }
+
+    @Override
+    protected void shutdown() {
+        ProgressManager.stop();
+        SelectionManager.flush();
+        RegenMetrics.unregister();
     }
-}
\ No newline at end of file
+}
@@ -4,23 +4,58 @@ import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
 import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hytalemodding.regen.PlayerPriority;
 import dev.hytalemodding.ui.RCPage;
+import dev.hytalemodding.world.chunk.ChunkOrder;
 
 import javax.annotation.Nonnull;
+import java.util.Locale;
 
 public class RCCommand extends AbstractPlayerCommand {
+
+    private final OptionalArg<String> orderArg;
+    private final OptionalArg<String> playersArg;
+
     public RCCommand() {
         super("rechunk", "Open rechunk page.");
+
+        // How jobs started from the page order their chunks: /rechunk [--order region|morton] [--players nearest_last|nearest_first|ignore]
+        this.orderArg = withOptionalArg("order", "Region order: region or morton", ArgTypes.STRING);
+        this.playersArg = withOptionalArg("players", "Chunks near players: nearest_last, nearest_first or ignore", ArgTypes.STRING);
+
+        // Job control: /rechunk jobs, /rechunk pause|resume|cancel <id>, /rechunk stats|watch|dryrun, /rechunk restore <id>, /rechunk snapshot [delete <id>]
+        this.addSubCommand(new RCJobsCommand());
+        this.addSubCommand(RCJobControlCommand.pause());
+        this.addSubCommand(RCJobControlCommand.resume());
+        this.addSubCommand(RCJobControlCommand.cancel());
+        this.addSubCommand(new RCStatsCommand());
+        this.addSubCommand(new RCWatchCommand());
+        this.addSubCommand(new RCDryRunCommand());
+        this.addSubCommand(new RCRestoreCommand());
+        this.addSubCommand(new RCSnapshotCommand());
     }
 
     @Override
     protected void execute(@Nonnull CommandContext commandContext, @Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
         Player player = commandContext.senderAs(Player.class);
-        player.getPageManager().openCustomPage(ref, store, new RCPage(playerRef));
+
+        ChunkOrder order = ChunkOrder.REGION;
+        PlayerPriority priority = PlayerPriority.NEAREST_LAST;
+        try {
+            if (orderArg.provided(commandContext)) order = ChunkOrder.valueOf(orderArg.get(commandContext).toUpperCase(Locale.ROOT));
+            if (playersArg.provided(commandContext)) priority = PlayerPriority.valueOf(playersArg.get(commandContext).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            commandContext.sendMessage(Message.raw("Usage: /rechunk [--order region|morton] [--players nearest_last|nearest_first|ignore]"));
+            return;
+        }
+
+        player.getPageManager().openCustomPage(ref, store, new RCPage(playerRef, order, priority));
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package dev.hytalemodding.commands;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hytalemodding.managers.ChunkRegenManager;
+import dev.hytalemodding.managers.SelectionManager;
+import dev.hytalemodding.planning.ChunkArea;
+import dev.hytalemodding.planning.ProtectionPlanner;
+
+import javax.annotation.Nonnull;
+
+// /rechunk dryrun protect|reset: what Start would do with the saved selections
+public class RCDryRunCommand extends AbstractPlayerCommand {
+
+    private final RequiredArg<String> modeArg;
+
+    public RCDryRunCommand() {
+        super("dryrun", "Show what a regeneration of your selections would do.");
+        this.modeArg = withRequiredArg("mode", "protect or reset", ArgTypes.STRING);
+    }
+
+    @Override
+    protected void execute(@Nonnull CommandContext commandContext, @Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        String mode = modeArg.get(commandContext);
+        ChunkArea selected = SelectionManager.getArea(playerRef.getUuid());
+
+        if (selected.isEmpty()) {
+            commandContext.sendMessage(Message.raw("No saved coordinates. Add some with /rechunk first."));
+            return;
+        }
+
+        switch (mode) {
+            case "reset" -> ChunkRegenManager.dryRun(world, playerRef, selected::forEachRow);
+            case "protect" -> ChunkRegenManager.dryRun(world, playerRef,
+                    ProtectionPlanner.protecting(selected, ProtectionPlanner.DEFAULT_WORK_RADIUS)::forEachRow);
+            default -> commandContext.sendMessage(Message.raw("Unknown mode " + mode + ": use protect or reset."));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dev.hytalemodding.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import dev.hytalemodding.managers.ChunkRegenManager;
+
+import javax.annotation.Nonnull;
+import java.util.function.Predicate;
+
+// /rechunk pause|resume|cancel <id>
+public class RCJobControlCommand extends CommandBase {
+
+    private final RequiredArg<String> idArg;
+    private final Predicate<String> action;
+    private final String done;
+
+    private RCJobControlCommand(String name, String description, Predicate<String> action, String done) {
+        super(name, description);
+        this.idArg = withRequiredArg("id", "Job id from /rechunk jobs", ArgTypes.STRING);
+        this.action = action;
+        this.done = done;
+    }
+
+    public static RCJobControlCommand pause() {
+        return new RCJobControlCommand("pause", "Pause a regeneration job.", ChunkRegenManager::pause, "paused");
+    }
+
+    public static RCJobControlCommand resume() {
+        return new RCJobControlCommand("resume", "Resume a paused regeneration job.", ChunkRegenManager::resume, "resumed");
+    }
+
+    public static RCJobControlCommand cancel() {
+        return new RCJobControlCommand("cancel", "Cancel a regeneration job.", ChunkRegenManager::cancel, "cancelling");
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext commandContext) {
+        String id = idArg.get(commandContext);
+
+        if (action.test(id)) {
+            commandContext.sendMessage(Message.raw("Job " + id + " " + done + "."));
+        } else {
+            commandContext.sendMessage(Message.raw("No job " + id + " in a state that allows this. See /rechunk jobs."));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dev.hytalemodding.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import dev.hytalemodding.managers.ChunkRegenManager;
+import dev.hytalemodding.regen.RegenJob;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+public class RCJobsCommand extends CommandBase {
+    public RCJobsCommand() {
+        super("jobs", "List running regeneration jobs.");
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext commandContext) {
+        List<RegenJob> jobs = ChunkRegenManager.getJobs();
+        if (jobs.isEmpty()) {
+            commandContext.sendMessage(Message.raw("No regeneration jobs running."));
+            return;
+        }
+
+        for (RegenJob job : jobs) {
+            commandContext.sendMessage(Message.raw(job.getId() + " [" + job.getWorld().getName() + "] "
+                    + job.getState() + " - " + job.getSubmitted() + "/" + job.size() + " chunks"));
+        }
+    }
+}
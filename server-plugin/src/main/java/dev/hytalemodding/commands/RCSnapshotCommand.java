@@ -0,0 +1,26 @@
+package dev.hytalemodding.commands;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hytalemodding.managers.ChunkRegenManager;
+
+import javax.annotation.Nonnull;
+
+// /rechunk snapshot: list the snapshots on disk, /rechunk snapshot delete <id>: free one
+public class RCSnapshotCommand extends AbstractPlayerCommand {
+
+    public RCSnapshotCommand() {
+        super("snapshot", "List the snapshots of regeneration jobs.");
+        this.addSubCommand(new RCSnapshotDeleteCommand());
+    }
+
+    @Override
+    protected void execute(@Nonnull CommandContext commandContext, @Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        ChunkRegenManager.listSnapshots(playerRef);
+    }
+}
@@ -0,0 +1,30 @@
+package dev.hytalemodding.commands;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hytalemodding.managers.ChunkRegenManager;
+
+import javax.annotation.Nonnull;
+
+// /rechunk snapshot delete <id>: remove a finished job's snapshot from disk
+public class RCSnapshotDeleteCommand extends AbstractPlayerCommand {
+
+    private final RequiredArg<String> idArg;
+
+    public RCSnapshotDeleteCommand() {
+        super("delete", "Delete the snapshot of a finished regeneration job.");
+        this.idArg = withRequiredArg("id", "Job id from /rechunk snapshot", ArgTypes.STRING);
+    }
+
+    @Override
+    protected void execute(@Nonnull CommandContext commandContext, @Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        ChunkRegenManager.deleteSnapshot(idArg.get(commandContext), playerRef);
+    }
+}
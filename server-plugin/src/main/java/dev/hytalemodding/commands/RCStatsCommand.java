@@ -0,0 +1,21 @@
+package dev.hytalemodding.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import dev.hytalemodding.metrics.RegenMetrics;
+
+import javax.annotation.Nonnull;
+
+public class RCStatsCommand extends CommandBase {
+    public RCStatsCommand() {
+        super("stats", "Show regeneration throughput, latencies and errors.");
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext commandContext) {
+        for (String line : RegenMetrics.get().summary()) {
+            commandContext.sendMessage(Message.raw(line));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package dev.hytalemodding.commands;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hytalemodding.managers.ProgressManager;
+
+import javax.annotation.Nonnull;
+
+public class RCWatchCommand extends AbstractPlayerCommand {
+    public RCWatchCommand() {
+        super("watch", "Toggle progress updates of all regeneration jobs.");
+    }
+
+    @Override
+    protected void execute(@Nonnull CommandContext commandContext, @Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        if (ProgressManager.toggle(playerRef)) {
+            commandContext.sendMessage(Message.raw("Watching regeneration progress. Run /rechunk watch again to stop."));
+        } else {
+            commandContext.sendMessage(Message.raw("Stopped watching regeneration progress."));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dev.hytalemodding.managers;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+import dev.hytalemodding.regen.WorldChunkBackend;
+import dev.hytalemodding.world.chunk.ChunkInventory;
+import dev.hytalemodding.world.chunk.ChunkSet;
+import dev.hytalemodding.world.chunk.Regions;
+
+import java.util.Arrays;
+
+public class ChunkInventoryManager {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    // There is no hook on the game's own saves, so nothing is cached between
+    // jobs: each plan reads the headers of just the region files it touches,
+    // when it is built. The cost follows the plan's regions, not the world.
+
+    // The stored chunks of every region these chunks fall in. Off the world thread.
+    public static ChunkInventory scan(World world, long[] chunkIndexes) {
+        ChunkSet regionKeys = new ChunkSet();
+        for (long chunkIndex : chunkIndexes) {
+            regionKeys.add(Regions.key(Regions.regionOf(ChunkUtil.xOfChunkIndex(chunkIndex)), Regions.regionOf(ChunkUtil.zOfChunkIndex(chunkIndex))));
+        }
+        return scanRegions(world, regionKeys);
+    }
+
+    // regionKeys holds Regions.key values. The saver is flushed first so chunks
+    // saved so far are in the files. A region whose header can't be read counts
+    // as fully stored, so nothing in it is skipped.
+    public static ChunkInventory scanRegions(World world, ChunkSet regionKeys) {
+        WorldChunkBackend backend = new WorldChunkBackend(world);
+        try {
+            backend.flush();
+        } catch (Exception e) {
+            LOGGER.atWarning().withCause(e).log("Could not flush chunk saver of world %s before reading its regions", world.getName());
+        }
+
+        ChunkInventory inventory = new ChunkInventory();
+        regionKeys.forEach(key -> {
+            int regionX = Regions.xOfKey(key);
+            int regionZ = Regions.zOfKey(key);
+            try {
+                long[] stored = backend.storedChunks(regionX, regionZ);
+                if (stored != null) inventory.addRegion(regionX, regionZ, stored);
+            } catch (Exception e) {
+                LOGGER.atWarning().withCause(e).log("Could not read region %s,%s of world %s, keeping all its chunks", regionX, regionZ, world.getName());
+                long[] all = new long[Regions.CHUNKS_PER_REGION / 64];
+                Arrays.fill(all, -1L);
+                inventory.addRegion(regionX, regionZ, all);
+            }
+        });
+        return inventory;
+    }
+}
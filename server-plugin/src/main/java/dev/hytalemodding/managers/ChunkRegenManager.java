@@ -1,79 +1,370 @@
 package dev.hytalemodding.managers;
 
-import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.server.core.Message;
-import com.hypixel.hytale.server.core.modules.entity.player.ChunkTracker;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.world.World;
-import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
-import com.hypixel.hytale.server.core.universe.world.storage.IChunkSaver;
-import dev.hytalemodding.world.pos.BlockPos;
+import dev.hytalemodding.metrics.RegenMetrics;
+import dev.hytalemodding.planning.ProtectionPlanner;
+import dev.hytalemodding.regen.ChunkSnapshot;
+import dev.hytalemodding.regen.ClientChunkRefresher;
+import dev.hytalemodding.regen.DryRun;
+import dev.hytalemodding.regen.PlayerPriority;
+import dev.hytalemodding.regen.RegenJob;
+import dev.hytalemodding.regen.RegenJournal;
+import dev.hytalemodding.regen.WorldChunkBackend;
+import dev.hytalemodding.regen.WorldRegenScheduler;
+import dev.hytalemodding.world.chunk.ChunkOrder;
+import dev.hytalemodding.world.chunk.ChunkSet;
+import dev.hytalemodding.world.chunk.Regions;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class ChunkRegenManager {
 
-    private static final int CHUNKS_PER_TICK = 5; // Higher = Faster but more Lag
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    public static void startRegeneration(World world, PlayerRef player, List<BlockPos> targetChunks) {
-        Queue<BlockPos> queue = new LinkedList<>(targetChunks);
+    // Every job that hasn't finished yet, by id
+    private static final Map<String, RegenJob> jobs = new ConcurrentHashMap<>();
 
-        player.sendMessage(Message.raw("Starting regeneration of " + queue.size() + " chunks..."));
+    // One scheduler per world; each is only touched from its world's thread
+    private static final Map<String, WorldRegenScheduler> schedulers = new ConcurrentHashMap<>();
 
-        processQueue(world, player, queue);
+    private static final int RESTORE_MAX_IN_FLIGHT = 64; // Chunk writes queued at the saver during a restore
+
+    // Claims, sorts, journals and snapshots new jobs; all of it scales with the plan
+    private static final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rechunk-jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Reads snapshots back; a restore blocks it while it waits for the saver
+    private static final ExecutorService restorer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rechunk-restore");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Jobs whose snapshot is being restored, so it isn't deleted underneath
+    private static final Set<String> restoring = ConcurrentHashMap.newKeySet();
+
+    static {
+        // Read from volatile counters, safe from any thread
+        RegenMetrics.get().setQueueDepth(() -> {
+            long depth = 0;
+            for (RegenJob job : jobs.values()) depth += Math.max(0, job.size() - job.getSubmitted());
+            return depth;
+        });
     }
 
-    private static void processQueue(World world, PlayerRef player, Queue<BlockPos> queue) {
-        if (queue.isEmpty()) {
-            player.sendMessage(Message.raw("Regeneration Complete!"));
-            // Refresh client chunks once at the end to ensure they see the changes
-            refreshClientChunks(world, player);
-            return;
+    // Chunk indexes as produced by ChunkUtil.indexChunk. The job is built off the
+    // world thread and handed to its scheduler once ready.
+    public static void startRegeneration(World world, PlayerRef player, long[] chunkIndexes) {
+        startRegeneration(world, player, chunkIndexes, ChunkOrder.REGION);
+    }
+
+    public static void startRegeneration(World world, PlayerRef player, long[] chunkIndexes, ChunkOrder order) {
+        startRegeneration(world, player, chunkIndexes, order, PlayerPriority.NEAREST_LAST);
+    }
+
+    public static void startRegeneration(World world, PlayerRef player, long[] chunkIndexes, ChunkOrder order, PlayerPriority priority) {
+        startRegeneration(world, player, chunkIndexes, order, priority, false, false);
+    }
+
+    // snapshot: keep a copy of every removed chunk for /rechunk restore
+    // pregenerate: generate the removed chunks in the background once they are gone
+    public static void startRegeneration(World world, PlayerRef player, long[] chunkIndexes, ChunkOrder order, PlayerPriority priority, boolean snapshot, boolean pregenerate) {
+        WorldRegenScheduler scheduler = getScheduler(world);
+
+        CompletableFuture.supplyAsync(() -> {
+            long[] free = scheduler.claim(chunkIndexes);
+            if (free.length == 0) return null;
+
+            try {
+                return RegenJob.create(world, player, free, order, priority, snapshot, pregenerate);
+            } catch (RuntimeException e) {
+                scheduler.release(free);
+                throw e;
+            }
+        }, builder).whenComplete((job, error) -> world.execute(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                LOGGER.atSevere().withCause(cause).log("Could not start regeneration job");
+                player.sendMessage(Message.raw("Error: Could not create the job's journal or snapshot, nothing was regenerated: " + cause.getMessage()));
+                return;
+            }
+            if (job == null) {
+                player.sendMessage(Message.raw("These chunks are already being regenerated."));
+                return;
+            }
+            jobs.put(job.getId(), job);
+            scheduler.add(job);
+
+            // The owner follows the job until it is done or they opt out with /rechunk watch
+            ProgressManager.subscribeOwner(player);
+
+            player.sendMessage(Message.raw("Starting regeneration of " + job.size() + " chunks... (job " + job.getId() + ")"));
+        }));
+    }
+
+    // Report what a plan would do without touching any chunk. The rows are streamed
+    // off the world thread twice: once for the regions they touch, then against
+    // those regions' stored chunks.
+    public static void dryRun(World world, PlayerRef player, Consumer<ProtectionPlanner.RowConsumer> rows) {
+        CompletableFuture.supplyAsync(() -> {
+                    ChunkSet regionKeys = new ChunkSet();
+                    rows.accept((z, fromX, toX) -> {
+                        int regionZ = Regions.regionOf(z);
+                        for (int regionX = Regions.regionOf(fromX); regionX <= Regions.regionOf(toX); regionX++) {
+                            regionKeys.add(Regions.key(regionX, regionZ));
+                        }
+                    });
+                    return DryRun.of(rows, ChunkInventoryManager.scanRegions(world, regionKeys)).report(RegenMetrics.get());
+                })
+                .whenComplete((lines, error) -> world.execute(() -> {
+                    if (error != null) {
+                        player.sendMessage(Message.raw("Error: Could not plan dry run: " + error.getMessage()));
+                        return;
+                    }
+                    for (String line : lines) player.sendMessage(Message.raw(line));
+                }));
+    }
+
+    // Pick up jobs whose journal survived a crash or restart
+    public static void resumePending() {
+        List<RegenJournal.PendingJob> pending = RegenJournal.loadPending();
+
+        for (RegenJournal.PendingJob job : pending) {
+            World world = Universe.get().getWorld(job.worldName());
+            if (world == null) {
+                LOGGER.atWarning().log("Cannot resume regeneration job %s: world %s is not loaded", job.jobId(), job.worldName());
+                continue;
+            }
+
+            LOGGER.atInfo().log("Resuming regeneration job %s (%s chunks left)", job.jobId(), job.remaining().length);
+            WorldRegenScheduler scheduler = getScheduler(world);
+            builder.execute(() -> {
+                scheduler.claim(job.remaining());
+
+                RegenJob resumed;
+                try {
+                    resumed = RegenJob.resume(world, job);
+                } catch (RuntimeException e) {
+                    // The journal stays, so the next start tries again
+                    scheduler.release(job.remaining());
+                    LOGGER.atSevere().withCause(e).log("Cannot resume regeneration job %s: its journal or snapshot could not be reopened", job.jobId());
+                    return;
+                }
+                world.execute(() -> {
+                    jobs.put(resumed.getId(), resumed);
+                    scheduler.add(resumed);
+                });
+            });
         }
+    }
 
-        // Process a batch of chunks
-        for (int i = 0; i < CHUNKS_PER_TICK && !queue.isEmpty(); i++) {
-            BlockPos pos = queue.poll();
-            regenerateSingleChunk(world, pos.chunkX(), pos.chunkZ());
+    // Write a finished job's snapshot back to disk. The chunks are claimed and
+    // unloaded on the world thread first, then streamed from the snapshot with
+    // a bounded number of writes in flight.
+    public static void restore(String jobId, PlayerRef player) {
+        if (!RegenJob.isValidId(jobId)) {
+            player.sendMessage(Message.raw("Not a job id: " + jobId + "."));
+            return;
         }
+        if (jobs.containsKey(jobId)) {
+            player.sendMessage(Message.raw("Job " + jobId + " is still running. Cancel it or let it finish first."));
+            return;
+        }
+        if (!ChunkSnapshot.exists(jobId)) {
+            player.sendMessage(Message.raw("No snapshot for job " + jobId + "."));
+            return;
+        }
+        if (!restoring.add(jobId)) {
+            player.sendMessage(Message.raw("Job " + jobId + " is already being restored."));
+            return;
+        }
+
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return new RestorePlan(ChunkSnapshot.worldOf(jobId), ChunkSnapshot.chunksOf(jobId));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, restorer).whenComplete((plan, error) -> {
+            if (error != null) {
+                restoring.remove(jobId);
+                LOGGER.atSevere().withCause(error).log("Could not read snapshot of job %s", jobId);
+                player.sendMessage(Message.raw("Error: Could not read snapshot of job " + jobId + "."));
+                return;
+            }
 
-        // Schedule the next batch for the next server tick
-        world.execute(() -> processQueue(world, player, queue));
+            World world = Universe.get().getWorld(plan.worldName());
+            if (world == null) {
+                restoring.remove(jobId);
+                player.sendMessage(Message.raw("World " + plan.worldName() + " of job " + jobId + " is not loaded."));
+                return;
+            }
+            world.execute(() -> restore(world, jobId, plan.chunks(), player));
+        });
     }
 
-    private static void regenerateSingleChunk(World world, int chunkX, int chunkZ) {
-        try {
-            ChunkStore chunkStore = world.getChunkStore();
-            IChunkSaver saver = chunkStore.getSaver();
+    private record RestorePlan(String worldName, long[] chunks) {}
 
-            if (saver == null) return;
+    private static void restore(World world, String jobId, long[] chunks, PlayerRef player) {
+        WorldRegenScheduler scheduler = getScheduler(world);
+        long[] claimed = scheduler.claim(chunks);
+        if (claimed.length < chunks.length) {
+            scheduler.release(claimed);
+            restoring.remove(jobId);
+            player.sendMessage(Message.raw("Some of these chunks are being regenerated. Try again once that job is done."));
+            return;
+        }
 
-            long chunkIndex = ChunkUtil.indexChunk(chunkX, chunkZ);
+        WorldChunkBackend backend = new WorldChunkBackend(world);
+        for (long chunkIndex : chunks) backend.unload(chunkIndex);
+        player.sendMessage(Message.raw("Restoring " + chunks.length + " chunks from job " + jobId + "..."));
 
-            // nload from RAM
+        CompletableFuture.runAsync(() -> {
+            Semaphore inFlight = new Semaphore(RESTORE_MAX_IN_FLIGHT);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
             try {
-                chunkStore.remove(chunkStore.getChunkReference(chunkIndex), RemoveReason.UNLOAD);
-            } catch (Exception ignored) {}
+                ChunkSnapshot.forEachChunk(jobId, (chunkIndex, data) -> {
+                    inFlight.acquireUninterruptibly();
+                    backend.write(ChunkUtil.xOfChunkIndex(chunkIndex), ChunkUtil.zOfChunkIndex(chunkIndex), data)
+                            .whenComplete((ignored, error) -> {
+                                if (error != null) failure.compareAndSet(null, error);
+                                inFlight.release();
+                            });
+                });
+                inFlight.acquireUninterruptibly(RESTORE_MAX_IN_FLIGHT);
+                backend.flush();
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            }
+            if (failure.get() != null) throw new CompletionException(failure.get());
+        }, restorer).whenComplete((ignored, error) -> world.execute(() -> {
+            scheduler.release(chunks);
+            restoring.remove(jobId);
+
+            if (error != null) {
+                LOGGER.atSevere().withCause(error).log("Could not restore snapshot of job %s", jobId);
+                player.sendMessage(Message.raw("Error: Restore of job " + jobId + " failed: " + error.getMessage()));
+                return;
+            }
 
-            // Delete from Disk (This is usually blocking, be careful)
-            saver.removeHolder(chunkX, chunkZ).join();
-            saver.flush();
+            ClientChunkRefresher.refresh(world, chunks);
+            player.sendMessage(Message.raw("Restored " + chunks.length + " chunks from job " + jobId + "."));
+        }));
+    }
 
-        } catch (Exception e) {
-            System.out.println("Error regenerating chunk " + chunkX + "," + chunkZ + ": " + e.getMessage());
+    // Snapshots are kept until deleted here; /rechunk snapshot lists them
+    public static void deleteSnapshot(String jobId, PlayerRef player) {
+        if (!RegenJob.isValidId(jobId)) {
+            player.sendMessage(Message.raw("Not a job id: " + jobId + "."));
+            return;
         }
+        if (jobs.containsKey(jobId)) {
+            player.sendMessage(Message.raw("Job " + jobId + " is still running. Cancel it or let it finish first."));
+            return;
+        }
+        if (!ChunkSnapshot.exists(jobId)) {
+            player.sendMessage(Message.raw("No snapshot for job " + jobId + "."));
+            return;
+        }
+        if (restoring.contains(jobId)) {
+            player.sendMessage(Message.raw("Job " + jobId + " is being restored. Try again once that is done."));
+            return;
+        }
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                ChunkSnapshot.delete(jobId);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, restorer).whenComplete((ignored, error) -> {
+            if (error != null) {
+                LOGGER.atSevere().withCause(error).log("Could not delete snapshot of job %s", jobId);
+                player.sendMessage(Message.raw("Error: Could not delete snapshot of job " + jobId + "."));
+                return;
+            }
+            player.sendMessage(Message.raw("Deleted snapshot of job " + jobId + "."));
+        });
     }
 
-    private static void refreshClientChunks(World world, PlayerRef player) {
-        try {
-            ChunkTracker tracker = world.getEntityStore().getStore()
-                    .getComponent(player.getReference(), ChunkTracker.getComponentType());
-            if (tracker != null) {
-                tracker.unloadAll(player);
+    public static void listSnapshots(PlayerRef player) {
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                List<String> lines = new ArrayList<>();
+                for (String jobId : ChunkSnapshot.list()) {
+                    lines.add(jobId + ": " + ChunkSnapshot.sizeOf(jobId) / (1024 * 1024) + " MB" + (jobs.containsKey(jobId) ? " (running)" : ""));
+                }
+                return lines;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, restorer).whenComplete((lines, error) -> {
+            if (error != null) {
+                LOGGER.atSevere().withCause(error).log("Could not list snapshots");
+                player.sendMessage(Message.raw("Error: Could not list snapshots."));
+                return;
             }
-        } catch (Exception ignored) {}
+            if (lines.isEmpty()) {
+                player.sendMessage(Message.raw("No snapshots."));
+                return;
+            }
+            for (String line : lines) player.sendMessage(Message.raw(line));
+            player.sendMessage(Message.raw("Free the space with /rechunk snapshot delete <id>."));
+        });
+    }
+
+    public static List<RegenJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    public static RegenJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public static boolean pause(String id) {
+        RegenJob job = jobs.get(id);
+        if (job == null || job.getState() != RegenJob.State.RUNNING) return false;
+        job.pause();
+        return true;
+    }
+
+    public static boolean resume(String id) {
+        RegenJob job = jobs.get(id);
+        if (job == null || job.getState() != RegenJob.State.PAUSED) return false;
+        job.resume();
+        return true;
+    }
+
+    public static boolean cancel(String id) {
+        RegenJob job = jobs.get(id);
+        if (job == null || job.getState() == RegenJob.State.FINISHING) return false;
+        job.cancel();
+        return true;
+    }
+
+    private static WorldRegenScheduler getScheduler(World world) {
+        return schedulers.computeIfAbsent(world.getName(),
+                name -> new WorldRegenScheduler(world, job -> jobs.remove(job.getId())));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,158 @@
+package dev.hytalemodding.managers;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.hytalemodding.regen.DryRun;
+import dev.hytalemodding.regen.RegenJob;
+import dev.hytalemodding.world.chunk.Regions;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ProgressManager {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final long INTERVAL_SECONDS = 5; // However many jobs run, watchers get one message per interval
+
+    // Players subscribed with /rechunk watch, and owners of running jobs
+    private static final Map<UUID, PlayerRef> watchers = new ConcurrentHashMap<>();
+
+    // Watchers only there for their own jobs; dropped once those are done
+    private static final Set<UUID> ownersOnly = ConcurrentHashMap.newKeySet();
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rechunk-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static void start() {
+        timer.scheduleAtFixedRate(ProgressManager::broadcast, INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static void stop() {
+        timer.shutdownNow();
+    }
+
+    public static void subscribe(PlayerRef player) {
+        ownersOnly.remove(player.getUuid());
+        watchers.put(player.getUuid(), player);
+    }
+
+    // Follow a job just started by this player, unless they already watch everything
+    public static void subscribeOwner(PlayerRef player) {
+        if (watchers.putIfAbsent(player.getUuid(), player) == null) ownersOnly.add(player.getUuid());
+    }
+
+    // Returns true if the player is now subscribed
+    public static boolean toggle(PlayerRef player) {
+        if (unsubscribe(player.getUuid())) return false;
+        subscribe(player);
+        return true;
+    }
+
+    private static boolean unsubscribe(UUID playerId) {
+        ownersOnly.remove(playerId);
+        return watchers.remove(playerId) != null;
+    }
+
+    private static void broadcast() {
+        try {
+            List<RegenJob> jobs = ChunkRegenManager.getJobs();
+            pruneWatchers(jobs);
+            if (jobs.isEmpty() || watchers.isEmpty()) return;
+
+            // Built once from the jobs' counters; owners-only watchers get just their own jobs' lines
+            Map<UUID, StringBuilder> ownLines = new HashMap<>();
+            StringBuilder text = new StringBuilder();
+            for (RegenJob job : jobs) {
+                String line = describe(job);
+                append(text, line);
+                if (job.getOwnerId() != null) append(ownLines.computeIfAbsent(job.getOwnerId(), owner -> new StringBuilder()), line);
+            }
+
+            Message message = Message.raw(text.toString());
+            for (Map.Entry<UUID, PlayerRef> watcher : watchers.entrySet()) {
+                try {
+                    if (ownersOnly.contains(watcher.getKey())) {
+                        StringBuilder own = ownLines.get(watcher.getKey());
+                        if (own != null) watcher.getValue().sendMessage(Message.raw(own.toString()));
+                        continue;
+                    }
+                    watcher.getValue().sendMessage(message);
+                } catch (Exception e) {
+                    // One broken connection must not stop the others
+                    LOGGER.atWarning().withCause(e).log("Could not send regeneration progress to %s", watcher.getKey());
+                    unsubscribe(watcher.getKey());
+                }
+            }
+        } catch (Exception e) {
+            // A failed run must not cancel the schedule
+            LOGGER.atWarning().withCause(e).log("Could not send regeneration progress");
+        }
+    }
+
+    private static void append(StringBuilder text, String line) {
+        if (!text.isEmpty()) text.append('\n');
+        text.append(line);
+    }
+
+    // Drops players who left, and owners whose jobs are all done
+    private static void pruneWatchers(List<RegenJob> jobs) {
+        Set<UUID> owners = new HashSet<>();
+        for (RegenJob job : jobs) {
+            if (job.getOwnerId() != null) owners.add(job.getOwnerId());
+        }
+
+        for (Map.Entry<UUID, PlayerRef> watcher : watchers.entrySet()) {
+            Ref<EntityStore> ref = watcher.getValue().getReference();
+            if (ref == null || !ref.isValid() || (ownersOnly.contains(watcher.getKey()) && !owners.contains(watcher.getKey()))) {
+                unsubscribe(watcher.getKey());
+            }
+        }
+    }
+
+    private static String describe(RegenJob job) {
+        int total = Math.max(1, job.size());
+        long removed = Math.min(job.getRemoved(), total);
+        double rate = job.getChunksPerSecond();
+
+        StringBuilder line = new StringBuilder()
+                .append('[').append(job.getId()).append("] ")
+                .append(removed * 100 / total).append("% (").append(removed).append('/').append(job.size()).append(')');
+
+        if (job.getState() == RegenJob.State.GENERATING) {
+            line.append(", generating ").append(job.getGenerated()).append('/').append(job.getToGenerate());
+            if (job.isPregenerationStopped()) line.append(", cancelling");
+        } else if (job.getState() != RegenJob.State.RUNNING) {
+            line.append(' ').append(job.getState());
+        } else {
+            line.append(String.format(", %.0f chunks/s, ETA %s", rate, eta(total - removed, rate)));
+        }
+
+        long region = job.getCurrentRegion();
+        if (region != RegenJob.NO_REGION) {
+            line.append(", region ").append(Regions.xOfKey(region)).append(',').append(Regions.zOfKey(region));
+        }
+        return line.toString();
+    }
+
+    private static String eta(long remaining, double rate) {
+        if (remaining <= 0) return "0:00";
+        if (rate < 0.01) return "--";
+
+        return DryRun.duration((long) Math.ceil(remaining / rate));
+    }
+}
@@ -1,59 +1,309 @@
 package dev.hytalemodding.managers;
 
+import com.hypixel.hytale.logger.HytaleLogger;
+import dev.hytalemodding.planning.ChunkArea;
+import dev.hytalemodding.planning.ChunkRect;
+import dev.hytalemodding.planning.Selection;
 import dev.hytalemodding.world.pos.BlockPos;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public class SelectionManager {
 
-    // Main list for the UI (keeps the order)
-    private static final Map<UUID, List<BlockPos>> selections = new HashMap<>();
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    // Limits for edits made through applyEdits, i.e. by players
+    public static final int MAX_RADIUS = 128; // Buffer chunks around one origin
+    public static final int MAX_SELECTIONS = 500; // Per player
+    public static final long MAX_SELECTED_CHUNKS = 1_000_000; // Summed over a player's selections, overlaps included
+
+    private static final long SAVE_DELAY_MILLIS = 2_000; // Clicks within this window share one write
+    private static final long IDLE_MILLIS = 10 * 60 * 1000; // Unused selections leave memory after this
+    private static final long EVICT_INTERVAL_MILLIS = 60 * 1000;
+
+    // File layout: MAGIC, next id, count, then id, block x, block z, radius per selection
+    private static final int MAGIC = 0x52435331; // "RCS1"
+    private static final String EXTENSION = ".selections";
 
-    // A "Checklist" for coloring (Set is faster for checking "contains")
-    private static final Map<UUID, Set<BlockPos>> origins = new HashMap<>();
+    // Players whose selections are in memory; everyone else is loaded on first use
+    private static final Map<UUID, PlayerSelections> selections = new ConcurrentHashMap<>();
 
-    public static void addSelection(UUID playerId, int blockX, int blockZ, boolean isOrigin) {
-        BlockPos pos = new BlockPos(blockX, blockZ);
+    // One thread does all the writes and evictions, so a player's saves never overlap
+    private static final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rechunk-selections");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-        // Add to the main list
-        selections.computeIfAbsent(playerId, id -> new ArrayList<>()).add(pos);
+    private static Path directory; // null keeps selections in memory only
 
-        // If it is an origin, add to the "Checklist"
-        if (isOrigin) {
-            origins.computeIfAbsent(playerId, id -> new HashSet<>()).add(pos);
+    public static void init(Path directory) {
+        SelectionManager.directory = directory;
+        io.scheduleWithFixedDelay(SelectionManager::evictIdle, EVICT_INTERVAL_MILLIS, EVICT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Write everything still pending and wait for it, e.g. when the plugin shuts down
+    public static void flush() {
+        try {
+            io.submit(() -> selections.forEach(SelectionManager::save)).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            LOGGER.atSevere().withCause(e).log("Could not save selections");
         }
     }
 
-    public static List<BlockPos> getSelections(UUID playerId) {
-        return selections.getOrDefault(playerId, List.of());
+    // Saving the same origin again updates its radius instead of adding a duplicate.
+    // Not checked against the limits; player edits go through applyEdits.
+    public static Selection addSelection(UUID playerId, int blockX, int blockZ, int radius) {
+        return modify(playerId, player -> player.add(new BlockPos(blockX, blockZ), Math.max(0, radius)));
+    }
+
+    // Several removals and saves as one change: one lock, one area rebuild and one
+    // write. Saves that would break a limit are skipped; returns how many were.
+    public static int applyEdits(UUID playerId, Map<BlockPos, Integer> added, Collection<Integer> removed) {
+        return modify(playerId, player -> {
+            for (int id : removed) player.remove(id);
+
+            int rejected = 0;
+            for (Map.Entry<BlockPos, Integer> entry : added.entrySet()) {
+                int radius = Math.min(MAX_RADIUS, Math.max(0, entry.getValue()));
+                if (player.tryAdd(entry.getKey(), radius) == null) rejected++;
+            }
+            return rejected;
+        });
+    }
+
+    // In the order they were saved
+    public static List<Selection> getSelections(UUID playerId) {
+        return withPlayer(playerId, player -> List.copyOf(player.byId.values()));
+    }
+
+    // Every selected chunk, overlaps merged
+    public static ChunkArea getArea(UUID playerId) {
+        return withPlayer(playerId, PlayerSelections::area);
+    }
+
+    public static boolean contains(UUID playerId, int chunkX, int chunkZ) {
+        return getArea(playerId).contains(chunkX, chunkZ);
     }
 
-    // Helper to check if a block should be colored
     public static boolean isOrigin(UUID playerId, BlockPos pos) {
-        Set<BlockPos> playerOrigins = origins.get(playerId);
-        return playerOrigins != null && playerOrigins.contains(pos);
+        return withPlayer(playerId, player -> player.byOrigin.containsKey(pos));
     }
 
     public static void clearSelections(UUID playerId) {
-        if (selections.containsKey(playerId)) selections.get(playerId).clear();
-        if (origins.containsKey(playerId)) origins.get(playerId).clear();
+        modify(playerId, player -> {
+            player.clear();
+            return null;
+        });
+    }
+
+    public static void removeSelection(UUID playerId, int id) {
+        modify(playerId, player -> {
+            player.remove(id);
+            return null;
+        });
+    }
+
+    // Runs the action under the player's lock, loading their selections first if needed
+    private static <T> T withPlayer(UUID playerId, Function<PlayerSelections, T> action) {
+        while (true) {
+            PlayerSelections player = selections.computeIfAbsent(playerId, SelectionManager::load);
+            synchronized (player) {
+                if (player.evicted) continue; // Lost a race with eviction: load again
+
+                player.lastAccess = System.currentTimeMillis();
+                return action.apply(player);
+            }
+        }
+    }
+
+    private static <T> T modify(UUID playerId, Function<PlayerSelections, T> action) {
+        return withPlayer(playerId, player -> {
+            T result = action.apply(player);
+            player.area = null;
+
+            if (directory != null && !player.saveScheduled) {
+                player.saveScheduled = true;
+                io.schedule(() -> save(playerId, player), SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            player.dirty = true;
+            return result;
+        });
+    }
+
+    private static void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (UUID playerId : selections.keySet()) {
+            selections.computeIfPresent(playerId, (id, player) -> {
+                synchronized (player) {
+                    if (player.dirty || now - player.lastAccess < IDLE_MILLIS) return player;
+
+                    player.evicted = true;
+                    return null;
+                }
+            });
+        }
+    }
+
+    private static Path fileOf(UUID playerId) {
+        return directory.resolve(playerId + EXTENSION);
+    }
+
+    // All or nothing: a file that can't be read completely is moved aside and the
+    // player starts empty, so ids and totals never come from half a file
+    private static PlayerSelections load(UUID playerId) {
+        if (directory == null) return new PlayerSelections();
+
+        Path file = fileOf(playerId);
+        if (!Files.exists(file)) return new PlayerSelections();
+
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (in.getInt() != MAGIC) throw new IOException("Not a selection file");
+
+            PlayerSelections player = new PlayerSelections();
+            int nextId = in.getInt();
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                Selection selection = new Selection(in.getInt(), new BlockPos(in.getInt(), in.getInt()), in.getInt());
+                if (player.byId.containsKey(selection.id()) || player.byOrigin.containsKey(selection.origin())) {
+                    throw new IOException("Duplicate selection " + selection.id());
+                }
+                player.byId.put(selection.id(), selection);
+                player.byOrigin.put(selection.origin(), selection);
+                player.chunkTotal += selection.chunks().area();
+                nextId = Math.max(nextId, selection.id() + 1);
+            }
+            player.nextId = nextId;
+            return player;
+        } catch (IOException | BufferUnderflowException e) {
+            LOGGER.atSevere().withCause(e).log("Could not load selections of %s, moving the file aside", playerId);
+            try {
+                Files.move(file, file.resolveSibling(file.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveError) {
+                LOGGER.atSevere().withCause(moveError).log("Could not move selections of %s aside", playerId);
+            }
+            return new PlayerSelections();
+        }
+    }
+
+    private static void save(UUID playerId, PlayerSelections player) {
+        if (directory == null) return;
+
+        ByteBuffer out;
+        synchronized (player) {
+            player.saveScheduled = false;
+            if (!player.dirty) return;
+            player.dirty = false;
+
+            if (player.byId.isEmpty()) {
+                out = null;
+            } else {
+                out = ByteBuffer.allocate(12 + player.byId.size() * 16);
+                out.putInt(MAGIC).putInt(player.nextId).putInt(player.byId.size());
+                for (Selection selection : player.byId.values()) {
+                    out.putInt(selection.id());
+                    out.putInt(selection.origin().x()).putInt(selection.origin().z());
+                    out.putInt(selection.radius());
+                }
+            }
+        }
+
+        // Written outside the lock; the single io thread keeps writes in order
+        Path file = fileOf(playerId);
+        try {
+            if (out == null) {
+                Files.deleteIfExists(file);
+                return;
+            }
+
+            Files.createDirectories(directory);
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, out.array());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Could not save selections of %s", playerId);
+        }
     }
 
-    public static void removeSelection(UUID playerId, int index) {
-        List<BlockPos> playerSelections = selections.get(playerId);
-        Set<BlockPos> playerOrigins = origins.get(playerId);
+    // Guarded by its own monitor
+    private static class PlayerSelections {
+        private final Map<Integer, Selection> byId = new LinkedHashMap<>();
+        private final Map<BlockPos, Selection> byOrigin = new HashMap<>();
+        private ChunkArea area; // Rebuilt lazily after a change
+        private int nextId = 1;
+        private long chunkTotal; // Sum of the selections' squares
+
+        private long lastAccess;
+        private boolean dirty;
+        private boolean saveScheduled;
+        private boolean evicted;
+
+        Selection add(BlockPos origin, int radius) {
+            Selection existing = byOrigin.get(origin);
+            Selection selection = existing != null
+                    ? new Selection(existing.id(), origin, Math.max(existing.radius(), radius))
+                    : new Selection(nextId++, origin, radius);
+
+            if (existing != null) chunkTotal -= existing.chunks().area();
+            chunkTotal += selection.chunks().area();
+
+            byId.put(selection.id(), selection);
+            byOrigin.put(origin, selection);
+            return selection;
+        }
+
+        // add, unless the result breaks MAX_SELECTIONS or MAX_SELECTED_CHUNKS. Checked
+        // against the summed squares, so no merged area has to be built per click.
+        Selection tryAdd(BlockPos origin, int radius) {
+            Selection previous = byOrigin.get(origin);
+            if (previous == null && byId.size() >= MAX_SELECTIONS) return null;
+
+            long after = previous == null
+                    ? chunkTotal + square(radius)
+                    : chunkTotal - square(previous.radius()) + square(Math.max(previous.radius(), radius));
+            if (after > MAX_SELECTED_CHUNKS) return null;
+
+            return add(origin, radius);
+        }
 
-        if (playerSelections != null && index >= 0 && index < playerSelections.size()) {
-            BlockPos removedPos = playerSelections.remove(index);
+        private static long square(int radius) {
+            long side = 2L * radius + 1;
+            return side * side;
+        }
 
-            // Also remove from the checklist if it exists there
-            if (playerOrigins != null) {
-                playerOrigins.remove(removedPos);
+        void remove(int id) {
+            Selection removed = byId.remove(id);
+            if (removed != null) {
+                byOrigin.remove(removed.origin());
+                chunkTotal -= removed.chunks().area();
             }
+        }
+
+        void clear() {
+            byId.clear();
+            byOrigin.clear();
+            chunkTotal = 0;
+        }
 
-            if (playerSelections.isEmpty()) {
-                selections.remove(playerId);
-                origins.remove(playerId);
+        ChunkArea area() {
+            if (area == null) {
+                List<ChunkRect> rects = new ArrayList<>(byId.size());
+                for (Selection selection : byId.values()) rects.add(selection.chunks());
+                area = ChunkArea.of(rects);
             }
+            return area;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package dev.hytalemodding.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// One removal batch, from its first delete until its flush finished.
+// Only recorded while a JFR recording is running.
+@Name("dev.hytalemodding.rechunk.RegenBatch")
+@Label("Regeneration Batch")
+@Category("ReChunk")
+@Description("Chunks removed and flushed together by a regeneration job")
+public class RegenBatchEvent extends Event {
+
+    @Label("Job")
+    public String jobId;
+
+    @Label("Chunks Removed")
+    public int chunks;
+
+    @Label("Failed Deletes")
+    public int errors;
+
+    @Label("Flush Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long flushNanos;
+}
@@ -0,0 +1,219 @@
+package dev.hytalemodding.metrics;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Counters and latency histograms of every regeneration job on the server.
+// Updated from the world and saver threads without locks; read by JMX and
+// /rechunk stats.
+public class RegenMetrics implements RegenMetricsMXBean {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String OBJECT_NAME = "dev.hytalemodding.rechunk:type=RegenMetrics";
+
+    private static final RegenMetrics INSTANCE = new RegenMetrics();
+
+    private final LongAdder chunksRemoved = new LongAdder();
+    private final LongAdder batchesFlushed = new LongAdder();
+    private final LongAdder chunksGenerated = new LongAdder();
+    private final RollingRate throughput = new RollingRate();
+
+    private final LatencyHistogram tick = new LatencyHistogram();
+    private final LatencyHistogram unload = new LatencyHistogram();
+    private final LatencyHistogram remove = new LatencyHistogram();
+    private final LatencyHistogram flush = new LatencyHistogram();
+    private final LatencyHistogram generate = new LatencyHistogram();
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private volatile LongSupplier queueDepth = () -> 0;
+
+    public static RegenMetrics get() {
+        return INSTANCE;
+    }
+
+    public static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            LOGGER.atWarning().withCause(e).log("Could not register regeneration metrics with JMX");
+        }
+    }
+
+    public static void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            // Not registered
+        }
+    }
+
+    // Chunks still waiting in the queues of all jobs
+    public void setQueueDepth(LongSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public void chunkRemoved(long nanos) {
+        chunksRemoved.increment();
+        throughput.add(1);
+        remove.record(nanos);
+    }
+
+    public void unloaded(long nanos) {
+        unload.record(nanos);
+    }
+
+    public void flushed(long nanos) {
+        batchesFlushed.increment();
+        flush.record(nanos);
+    }
+
+    // From the request until the chunk exists again
+    public void chunkGenerated(long nanos) {
+        chunksGenerated.increment();
+        generate.record(nanos);
+    }
+
+    public void tick(long nanos) {
+        tick.record(nanos);
+    }
+
+    // Counted per stage and root cause, e.g. "remove: IOException"
+    public void error(String stage, Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        errors.computeIfAbsent(stage + ": " + cause.getClass().getSimpleName(), key -> new LongAdder()).increment();
+    }
+
+    // Lines for /rechunk stats
+    public List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Removed %d chunks in %d batches, %.1f chunks/s, %d queued",
+                getChunksRemoved(), getBatchesFlushed(), getChunksPerSecond(), getQueueDepth()));
+        lines.add("Tick: " + line(tick));
+        lines.add("Unload: " + line(unload));
+        lines.add("Remove: " + line(remove));
+        lines.add("Flush: " + line(flush));
+        if (generate.getCount() > 0) lines.add("Pre-generate: " + line(generate));
+
+        Map<String, Long> errorCounts = getErrors();
+        if (errorCounts.isEmpty()) {
+            lines.add("Errors: none");
+        } else {
+            errorCounts.forEach((cause, count) -> lines.add("Errors: " + count + "x " + cause));
+        }
+        return lines;
+    }
+
+    private static String line(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) return "no samples";
+        return String.format("%d samples, mean %s, p50 %s, p99 %s, max %s", histogram.getCount(),
+                format(histogram.getMeanNanos()), format(histogram.getPercentileNanos(50)),
+                format(histogram.getPercentileNanos(99)), format(histogram.getMaxNanos()));
+    }
+
+    private static String format(long nanos) {
+        if (nanos >= 10_000_000L) return TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+        return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @Override
+    public long getChunksRemoved() {
+        return chunksRemoved.sum();
+    }
+
+    @Override
+    public long getBatchesFlushed() {
+        return batchesFlushed.sum();
+    }
+
+    @Override
+    public double getChunksPerSecond() {
+        return throughput.perSecond();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return queueDepth.getAsLong();
+    }
+
+    public long getUnloadMeanNanos() {
+        return unload.getMeanNanos();
+    }
+
+    public long getRemoveMeanNanos() {
+        return remove.getMeanNanos();
+    }
+
+    @Override
+    public long getTickMeanMicros() {
+        return micros(tick.getMeanNanos());
+    }
+
+    @Override
+    public long getTickP99Micros() {
+        return micros(tick.getPercentileNanos(99));
+    }
+
+    @Override
+    public long getTickMaxMicros() {
+        return micros(tick.getMaxNanos());
+    }
+
+    @Override
+    public long getUnloadP99Micros() {
+        return micros(unload.getPercentileNanos(99));
+    }
+
+    @Override
+    public long getRemoveP50Micros() {
+        return micros(remove.getPercentileNanos(50));
+    }
+
+    @Override
+    public long getRemoveP99Micros() {
+        return micros(remove.getPercentileNanos(99));
+    }
+
+    @Override
+    public long getFlushP99Micros() {
+        return micros(flush.getPercentileNanos(99));
+    }
+
+    @Override
+    public long getChunksGenerated() {
+        return chunksGenerated.sum();
+    }
+
+    @Override
+    public long getGenerateP99Micros() {
+        return micros(generate.getPercentileNanos(99));
+    }
+
+    @Override
+    public Map<String, Long> getErrors() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        errors.forEach((cause, count) -> snapshot.put(cause, count.sum()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,35 @@
+package dev.hytalemodding.metrics;
+
+import java.util.Map;
+
+// Registered as dev.hytalemodding.rechunk:type=RegenMetrics; durations are microseconds
+public interface RegenMetricsMXBean {
+
+    long getChunksRemoved();
+
+    long getBatchesFlushed();
+
+    double getChunksPerSecond();
+
+    long getQueueDepth();
+
+    long getTickMeanMicros();
+
+    long getTickP99Micros();
+
+    long getTickMaxMicros();
+
+    long getUnloadP99Micros();
+
+    long getRemoveP50Micros();
+
+    long getRemoveP99Micros();
+
+    long getFlushP99Micros();
+
+    long getChunksGenerated();
+
+    long getGenerateP99Micros();
+
+    Map<String, Long> getErrors();
+}
@@ -0,0 +1,37 @@
+package dev.hytalemodding.metrics;
+
+// Events per second over the last few seconds, kept in one-second buckets
+// so reading it never walks anything larger than the window.
+public class RollingRate {
+
+    private static final int WINDOW_SECONDS = 10;
+
+    private final long[] seconds = new long[WINDOW_SECONDS];
+    private final long[] counts = new long[WINDOW_SECONDS];
+
+    public synchronized void add(long events) {
+        long now = System.nanoTime() / 1_000_000_000L;
+        int slot = Math.floorMod(now, WINDOW_SECONDS); // nanoTime may be negative
+
+        if (seconds[slot] != now) {
+            seconds[slot] = now;
+            counts[slot] = 0;
+        }
+        counts[slot] += events;
+    }
+
+    // Average over the completed seconds of the window, so a fresh second doesn't drag it down
+    public synchronized double perSecond() {
+        long now = System.nanoTime() / 1_000_000_000L;
+
+        long total = 0;
+        long oldest = now;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            if (seconds[i] < now && now - seconds[i] < WINDOW_SECONDS && counts[i] > 0) {
+                total += counts[i];
+                oldest = Math.min(oldest, seconds[i]);
+            }
+        }
+        return oldest == now ? 0 : (double) total / (now - oldest);
+    }
+}
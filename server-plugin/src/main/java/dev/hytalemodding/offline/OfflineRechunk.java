@@ -0,0 +1,258 @@
+package dev.hytalemodding.offline;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import dev.hytalemodding.planning.ChunkArea;
+import dev.hytalemodding.planning.ChunkRect;
+import dev.hytalemodding.planning.ProtectionPlanner;
+import dev.hytalemodding.planning.Selection;
+import dev.hytalemodding.planning.WorkArea;
+import dev.hytalemodding.world.chunk.ChunkInventory;
+import dev.hytalemodding.world.chunk.Regions;
+import dev.hytalemodding.world.pos.BlockPos;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Headless regeneration for maintenance windows, with the server stopped.
+// The same plans as /rechunk, but applied straight to the region files, one
+// file per task across all cores: fully targeted files are deleted, partly
+// targeted ones lose just the targeted chunks from their header.
+//
+// java -cp HytaleServer.jar:rechunk.jar dev.hytalemodding.offline.OfflineRechunk <chunks dir> protect|reset
+//      --base <x>,<z>[,<radius>]... [--work-radius <chunks>] [--threads <n>] [--backup <dir>] [--dry-run]
+public class OfflineRechunk {
+
+    private static final Pattern REGION_FILE = Pattern.compile("(-?\\d+)\\.(-?\\d+)\\.region\\.bin");
+    private static final int WORDS = Regions.CHUNKS_PER_REGION / 64;
+
+    private final Path chunksPath;
+    private final Path backupPath; // null: no backup
+    private final boolean dryRun;
+    private final ForkJoinPool pool;
+
+    private final LongAdder filesDeleted = new LongAdder();
+    private final LongAdder filesRewritten = new LongAdder();
+    private final LongAdder chunksDropped = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public OfflineRechunk(Path chunksPath, Path backupPath, boolean dryRun, int threads) {
+        this.chunksPath = chunksPath;
+        this.backupPath = backupPath;
+        this.dryRun = dryRun;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) usage("Missing arguments");
+
+        Path chunksPath = Path.of(args[0]);
+        String mode = args[1];
+        List<Selection> bases = new ArrayList<>();
+        Integer workRadius = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path backupPath = null;
+        boolean dryRun = false;
+
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--base" -> bases.add(parseBase(bases.size() + 1, value(args, ++i)));
+                case "--work-radius" -> workRadius = parseInt(value(args, ++i));
+                case "--threads" -> threads = Math.max(1, parseInt(value(args, ++i)));
+                case "--backup" -> backupPath = Path.of(value(args, ++i));
+                case "--dry-run" -> dryRun = true;
+                default -> usage("Unknown option " + args[i]);
+            }
+        }
+        if (!Files.isDirectory(chunksPath)) usage("No chunks directory at " + chunksPath);
+        if (!mode.equals("protect") && !mode.equals("reset")) usage("Unknown mode " + mode);
+        if (bases.isEmpty()) usage("Give at least one --base");
+
+        List<ChunkRect> rects = new ArrayList<>(bases.size());
+        for (Selection base : bases) rects.add(base.chunks());
+        ChunkArea selected = ChunkArea.of(rects);
+
+        OfflineRechunk rechunk = new OfflineRechunk(chunksPath, backupPath, dryRun, threads);
+        long start = System.nanoTime();
+
+        ChunkInventory inventory = rechunk.scan();
+        System.out.printf("Scanned %d chunks in %d region files with %d threads (%d ms)%n",
+                inventory.size(), rechunk.countRegions(inventory), threads, (System.nanoTime() - start) / 1_000_000);
+
+        // Protect mode without a work radius resets everything on disk except the bases
+        Map<Long, long[]> targets = switch (mode) {
+            case "reset" -> targets(selected::forEachRow);
+            default -> targets(workRadius != null
+                    ? ProtectionPlanner.protecting(selected, workRadius)::forEachRow
+                    : new ProtectionPlanner(selected.rects(), WorkArea.onDisk(inventory))::forEachRow);
+        };
+
+        rechunk.apply(targets, inventory);
+        System.out.printf("%s%d region files deleted, %d rewritten, %d chunks dropped, %d errors (%d ms)%n",
+                dryRun ? "Dry run: " : "", rechunk.filesDeleted.sum(), rechunk.filesRewritten.sum(),
+                rechunk.chunksDropped.sum(), rechunk.errors.sum(), (System.nanoTime() - start) / 1_000_000);
+
+        rechunk.pool.shutdown();
+        if (rechunk.errors.sum() > 0) System.exit(1);
+    }
+
+    // Every stored chunk, read from the mapped header of every region file in parallel
+    public ChunkInventory scan() throws IOException, InterruptedException, ExecutionException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(chunksPath, "*.region.bin")) {
+            for (Path file : stream) files.add(file);
+        }
+
+        ChunkInventory inventory = new ChunkInventory();
+        pool.submit(() -> files.parallelStream().forEach(file -> {
+            Matcher name = REGION_FILE.matcher(file.getFileName().toString());
+            if (!name.matches()) return;
+
+            int baseX = Integer.parseInt(name.group(1)) << Regions.SHIFT;
+            int baseZ = Integer.parseInt(name.group(2)) << Regions.SHIFT;
+            try (RegionHeader header = RegionHeader.open(file, false)) {
+                long[] stored = header.stored();
+                for (int local = 0; local < Regions.CHUNKS_PER_REGION; local++) {
+                    if ((stored[local >> 6] & (1L << local)) != 0) {
+                        inventory.add(ChunkUtil.indexChunk(baseX + Regions.localX(local), baseZ + Regions.localZ(local)));
+                    }
+                }
+            } catch (IOException e) {
+                errors.increment();
+                System.err.println("Skipping " + file.getFileName() + ": " + e.getMessage());
+            }
+        })).get();
+        return inventory;
+    }
+
+    // The plan's rows as one 1024-bit target map per region
+    public static Map<Long, long[]> targets(Consumer<ProtectionPlanner.RowConsumer> rows) {
+        Map<Long, long[]> targets = new HashMap<>();
+        rows.accept((z, fromX, toX) -> {
+            // Split the run at region borders; a region row is 32 bits of one word
+            int x = fromX;
+            while (x <= toX) {
+                int end = Math.min(toX, (Regions.regionOf(x) << Regions.SHIFT) + Regions.SIZE - 1);
+                long[] bits = targets.computeIfAbsent(Regions.key(Regions.regionOf(x), Regions.regionOf(z)), key -> new long[WORDS]);
+
+                int first = Regions.localIndex(x, z);
+                bits[first >> 6] |= ((1L << (end - x + 1)) - 1) << (first & 63);
+                x = end + 1;
+            }
+        });
+        return targets;
+    }
+
+    // One task per region file that holds targeted chunks
+    public void apply(Map<Long, long[]> targets, ChunkInventory inventory) throws InterruptedException, ExecutionException {
+        List<Long> regions = new ArrayList<>();
+        targets.forEach((key, bits) -> {
+            if (inventory.count(Regions.xOfKey(key), Regions.zOfKey(key)) > 0) regions.add(key);
+        });
+
+        pool.submit(() -> regions.parallelStream().forEach(key -> {
+            Path file = chunksPath.resolve(Regions.fileName(Regions.xOfKey(key), Regions.zOfKey(key)));
+            try {
+                applyRegion(file, targets.get(key));
+            } catch (IOException e) {
+                errors.increment();
+                System.err.println("Could not rewrite " + file.getFileName() + ": " + e.getMessage());
+            }
+        })).get();
+    }
+
+    private void applyRegion(Path file, long[] target) throws IOException {
+        boolean whole;
+        int dropped = 0;
+
+        try (RegionHeader header = RegionHeader.open(file, false)) {
+            long[] stored = header.stored();
+            boolean keepsChunks = false;
+            for (int i = 0; i < WORDS; i++) {
+                dropped += Long.bitCount(stored[i] & target[i]);
+                keepsChunks |= (stored[i] & ~target[i]) != 0;
+            }
+            whole = !keepsChunks;
+        }
+        if (dropped == 0) return;
+
+        chunksDropped.add(dropped);
+        if (dryRun) {
+            (whole ? filesDeleted : filesRewritten).increment();
+            return;
+        }
+
+        if (backupPath != null) {
+            Files.createDirectories(backupPath);
+            Files.copy(file, backupPath.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (whole) {
+            try {
+                Files.delete(file);
+                filesDeleted.increment();
+                return;
+            } catch (IOException e) {
+                // Still mapped on some platforms: emptying the header has the same effect
+            }
+        }
+
+        try (RegionHeader header = RegionHeader.open(file, true)) {
+            long[] stored = header.stored();
+            for (int local = 0; local < Regions.CHUNKS_PER_REGION; local++) {
+                long bit = 1L << local;
+                if ((stored[local >> 6] & target[local >> 6] & bit) != 0) header.drop(local);
+            }
+            header.force();
+        }
+        filesRewritten.increment();
+    }
+
+    private long countRegions(ChunkInventory inventory) {
+        long[] count = {0};
+        inventory.forEachRegion(key -> count[0]++);
+        return count[0];
+    }
+
+    // <block x>,<block z>[,<radius in chunks>], like the coordinates saved in the page
+    private static Selection parseBase(int id, String value) {
+        String[] parts = value.split(",");
+        if (parts.length < 2 || parts.length > 3) usage("Bad --base " + value);
+
+        int radius = parts.length == 3 ? Math.max(0, parseInt(parts[2])) : 0;
+        return new Selection(id, new BlockPos(parseInt(parts[0]), parseInt(parts[1])), radius);
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            usage("Not a number: " + value);
+            return 0;
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) usage("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: OfflineRechunk <chunks dir> protect|reset --base <x>,<z>[,<radius>]...");
+        System.err.println("       [--work-radius <chunks>] [--threads <n>] [--backup <dir>] [--dry-run]");
+        System.exit(2);
+    }
+}
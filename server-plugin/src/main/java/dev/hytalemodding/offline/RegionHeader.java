@@ -0,0 +1,77 @@
+package dev.hytalemodding.offline;
+
+import dev.hytalemodding.world.chunk.Regions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// The blob index at the start of a *.region.bin file, memory-mapped. Only the
+// header is mapped: finding and dropping chunks never reads chunk data.
+//
+// Layout (big-endian): "HytaleIndexedStorage", version, blob count, segment
+// size, then one int per blob giving its first segment, 0 when the blob is
+// empty. Blob i is the chunk at Regions.localIndex i. A dropped chunk's
+// segments are not reclaimed: the file keeps its size.
+public class RegionHeader implements Closeable {
+
+    private static final byte[] MAGIC = "HytaleIndexedStorage".getBytes(StandardCharsets.US_ASCII);
+    private static final int BLOB_COUNT_OFFSET = MAGIC.length + 4;
+    private static final int TABLE_OFFSET = MAGIC.length + 12;
+    private static final int LENGTH = TABLE_OFFSET + Regions.CHUNKS_PER_REGION * 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+
+    private RegionHeader(FileChannel channel, MappedByteBuffer header) {
+        this.channel = channel;
+        this.header = header;
+    }
+
+    public static RegionHeader open(Path file, boolean write) throws IOException {
+        FileChannel channel = write
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() < LENGTH) throw new IOException("Too short for a region file");
+
+            MappedByteBuffer header = channel.map(write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, LENGTH);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (header.get(i) != MAGIC[i]) throw new IOException("Not a region file");
+            }
+            if (header.getInt(BLOB_COUNT_OFFSET) != Regions.CHUNKS_PER_REGION) {
+                throw new IOException("Unexpected blob count " + header.getInt(BLOB_COUNT_OFFSET));
+            }
+            return new RegionHeader(channel, header);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Bit i set when the chunk at local index i is stored, as in ChunkInventory
+    public long[] stored() {
+        long[] bits = new long[Regions.CHUNKS_PER_REGION / 64];
+        for (int local = 0; local < Regions.CHUNKS_PER_REGION; local++) {
+            if (header.getInt(TABLE_OFFSET + local * 4) != 0) bits[local >> 6] |= 1L << local;
+        }
+        return bits;
+    }
+
+    public void drop(int local) {
+        header.putInt(TABLE_OFFSET + local * 4, 0);
+    }
+
+    public void force() {
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,138 @@
+package dev.hytalemodding.planning;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+// Union of chunk rectangles, kept as merged X runs per row. Overlapping
+// rectangles are counted once, and memory grows with the number of rows,
+// not with the number of chunks covered.
+public class ChunkArea implements WorkArea {
+
+    public static final ChunkArea EMPTY = new ChunkArea(List.of(), new int[0], new int[0][]);
+
+    private final List<ChunkRect> rects;
+    private final int[] rowZ; // Sorted
+    private final int[][] rowRuns; // fromX, toX pairs of each row, sorted and disjoint
+
+    private ChunkArea(List<ChunkRect> rects, int[] rowZ, int[][] rowRuns) {
+        this.rects = rects;
+        this.rowZ = rowZ;
+        this.rowRuns = rowRuns;
+    }
+
+    public static ChunkArea of(List<ChunkRect> rects) {
+        if (rects.isEmpty()) return EMPTY;
+
+        List<ChunkRect> copy = List.copyOf(rects);
+        Rows rows = new Rows();
+        new ProtectionPlanner(List.of(), () -> copy).forEachRow(rows::add);
+        rows.finishRow();
+
+        return new ChunkArea(copy, Arrays.copyOf(rows.zs, rows.count), Arrays.copyOf(rows.runs, rows.count));
+    }
+
+    // The rectangles the area was built from; their union is the area
+    @Override
+    public List<ChunkRect> rects() {
+        return rects;
+    }
+
+    public boolean contains(long chunkIndex) {
+        return contains(ChunkUtil.xOfChunkIndex(chunkIndex), ChunkUtil.zOfChunkIndex(chunkIndex));
+    }
+
+    public boolean contains(int chunkX, int chunkZ) {
+        int row = Arrays.binarySearch(rowZ, chunkZ);
+        if (row < 0) return false;
+
+        int[] runs = rowRuns[row];
+        int low = 0;
+        int high = runs.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (chunkX < runs[mid * 2]) {
+                high = mid - 1;
+            } else if (chunkX > runs[mid * 2 + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long count() {
+        long total = 0;
+        for (int[] runs : rowRuns) {
+            for (int i = 0; i < runs.length; i += 2) total += runs[i + 1] - runs[i] + 1;
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return rowZ.length == 0;
+    }
+
+    // Same shape as ProtectionPlanner.forEachRow, so both can feed a dry run
+    public void forEachRow(ProtectionPlanner.RowConsumer consumer) {
+        for (int row = 0; row < rowZ.length; row++) {
+            int[] runs = rowRuns[row];
+            for (int i = 0; i < runs.length; i += 2) consumer.accept(rowZ[row], runs[i], runs[i + 1]);
+        }
+    }
+
+    public void forEach(LongConsumer consumer) {
+        for (int row = 0; row < rowZ.length; row++) {
+            int[] runs = rowRuns[row];
+            for (int i = 0; i < runs.length; i += 2) {
+                for (int x = runs[i]; x <= runs[i + 1]; x++) consumer.accept(ChunkUtil.indexChunk(x, rowZ[row]));
+            }
+        }
+    }
+
+    public long[] toArray() {
+        long count = count();
+        if (count > Integer.MAX_VALUE - 8) throw new IllegalStateException("Area too large: " + count + " chunks");
+
+        long[] result = new long[(int) count];
+        int[] size = {0};
+        forEach(chunkIndex -> result[size[0]++] = chunkIndex);
+        return result;
+    }
+
+    // Collects the planner's rows, which arrive in increasing Z and X
+    private static class Rows {
+        private int[] zs = new int[16];
+        private int[][] runs = new int[16][];
+        private int count;
+
+        private int currentZ;
+        private int[] current = new int[8];
+        private int currentSize;
+
+        void add(int z, int fromX, int toX) {
+            if (currentSize > 0 && z != currentZ) finishRow();
+            currentZ = z;
+
+            if (currentSize == current.length) current = Arrays.copyOf(current, currentSize * 2);
+            current[currentSize++] = fromX;
+            current[currentSize++] = toX;
+        }
+
+        void finishRow() {
+            if (currentSize == 0) return;
+
+            if (count == zs.length) {
+                zs = Arrays.copyOf(zs, count * 2);
+                runs = Arrays.copyOf(runs, count * 2);
+            }
+            zs[count] = currentZ;
+            runs[count] = Arrays.copyOf(current, currentSize);
+            count++;
+            currentSize = 0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package dev.hytalemodding.planning;
+
+// Inclusive rectangle in chunk coordinates
+public record ChunkRect(int minX, int minZ, int maxX, int maxZ) {
+
+    public static ChunkRect around(int chunkX, int chunkZ, int radius) {
+        return new ChunkRect(chunkX - radius, chunkZ - radius, chunkX + radius, chunkZ + radius);
+    }
+
+    public boolean contains(int chunkX, int chunkZ) {
+        return chunkX >= minX && chunkX <= maxX && chunkZ >= minZ && chunkZ <= maxZ;
+    }
+
+    public long area() {
+        return (long) (maxX - minX + 1) * (maxZ - minZ + 1);
+    }
+}
@@ -0,0 +1,256 @@
+package dev.hytalemodding.planning;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+// Computes "work area minus protected areas" one chunk row at a time.
+// Each row is reduced to merged X intervals, so the cost depends on the
+// number of rows and rectangles, not on how many chunks they cover.
+public class ProtectionPlanner {
+
+    @FunctionalInterface
+    public interface RowConsumer {
+        // Chunks fromX..toX (inclusive) of row z are targeted
+        void accept(int z, int fromX, int toX);
+    }
+
+    public static final int DEFAULT_WORK_RADIUS = 32; // Chunks around each base that protect mode resets
+
+    private final List<ChunkRect> work;
+    private final List<ChunkRect> protectedAreas;
+    private LongPredicate filter;
+
+    public ProtectionPlanner(List<ChunkRect> protectedAreas, WorkArea workArea) {
+        this.protectedAreas = sortedByMinZ(protectedAreas);
+        this.work = sortedByMinZ(workArea.rects());
+    }
+
+    // Protect mode: everything within workRadius of a selection, except the selections themselves
+    public static ProtectionPlanner protecting(ChunkArea selected, int workRadius) {
+        return new ProtectionPlanner(selected.rects(), WorkArea.around(selected.rects(), workRadius));
+    }
+
+    // Only keep chunks matching the predicate, e.g. ChunkInventory::contains
+    public ProtectionPlanner onlyWhere(LongPredicate filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    // Rows before the onlyWhere filter is applied
+    public void forEachRow(RowConsumer consumer) {
+        if (work.isEmpty()) return;
+
+        Sweep workSweep = new Sweep(work);
+        Sweep protectedSweep = new Sweep(protectedAreas);
+        Intervals workRow = new Intervals();
+        Intervals protectedRow = new Intervals();
+
+        int maxZ = Integer.MIN_VALUE;
+        for (ChunkRect rect : work) maxZ = Math.max(maxZ, rect.maxZ());
+
+        int z = work.get(0).minZ();
+        while (z <= maxZ) {
+            workSweep.advance(z);
+            if (workSweep.active.isEmpty()) {
+                // Nothing to do until the next work rectangle starts
+                z = workSweep.nextMinZ();
+                continue;
+            }
+            protectedSweep.advance(z);
+
+            workSweep.collect(workRow);
+            protectedSweep.collect(protectedRow);
+
+            subtract(z, workRow, protectedRow, consumer);
+            z++;
+        }
+    }
+
+    public void forEach(LongConsumer consumer) {
+        forEachRow((z, fromX, toX) -> {
+            for (int x = fromX; x <= toX; x++) {
+                long chunkIndex = ChunkUtil.indexChunk(x, z);
+                if (filter == null || filter.test(chunkIndex)) consumer.accept(chunkIndex);
+            }
+        });
+    }
+
+    public long count() {
+        long[] total = new long[1];
+        if (filter == null) {
+            forEachRow((z, fromX, toX) -> total[0] += toX - fromX + 1);
+        } else {
+            forEach(chunkIndex -> total[0]++);
+        }
+        return total[0];
+    }
+
+    public long[] plan() {
+        long count = filter == null ? count() : 1024;
+        if (count > Integer.MAX_VALUE - 8) throw new IllegalStateException("Plan too large: " + count + " chunks");
+
+        long[][] result = {new long[(int) count]};
+        int[] size = {0};
+        forEach(chunkIndex -> {
+            // Only grows when a filter made us guess the size
+            if (size[0] == result[0].length) result[0] = Arrays.copyOf(result[0], size[0] * 2);
+            result[0][size[0]++] = chunkIndex;
+        });
+        return size[0] == result[0].length ? result[0] : Arrays.copyOf(result[0], size[0]);
+    }
+
+    // Turns a set of single chunks into horizontal runs, one rectangle per run
+    public static List<ChunkRect> rectsOf(long[] chunkIndexes) {
+        long[] sorted = new long[chunkIndexes.length];
+        for (int i = 0; i < sorted.length; i++) {
+            // Row-major key: Z in the high half, X in the low half (sign-flipped so they sort as unsigned)
+            int x = ChunkUtil.xOfChunkIndex(chunkIndexes[i]);
+            int z = ChunkUtil.zOfChunkIndex(chunkIndexes[i]);
+            sorted[i] = ((long) z << 32) | ((x ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+        }
+        Arrays.sort(sorted);
+
+        List<ChunkRect> rects = new ArrayList<>();
+        int i = 0;
+        while (i < sorted.length) {
+            int z = (int) (sorted[i] >> 32);
+            int startX = (int) sorted[i] ^ Integer.MIN_VALUE;
+            int endX = startX;
+
+            i++;
+            while (i < sorted.length) {
+                if (sorted[i] == sorted[i - 1]) {
+                    i++; // Duplicate
+                } else if (sorted[i] == sorted[i - 1] + 1 && (int) (sorted[i] >> 32) == z) {
+                    endX++;
+                    i++;
+                } else {
+                    break;
+                }
+            }
+
+            rects.add(new ChunkRect(startX, z, endX, z));
+        }
+        return rects;
+    }
+
+    private static void subtract(int z, Intervals work, Intervals holes, RowConsumer consumer) {
+        int h = 0;
+        for (int w = 0; w < work.size; w++) {
+            int from = work.starts[w];
+            int to = work.ends[w];
+
+            while (h < holes.size && holes.ends[h] < from) h++;
+
+            int cursor = from;
+            int k = h;
+            while (k < holes.size && holes.starts[k] <= to) {
+                if (holes.starts[k] > cursor) consumer.accept(z, cursor, holes.starts[k] - 1);
+                cursor = Math.max(cursor, holes.ends[k] + 1);
+                k++;
+            }
+            if (cursor <= to) consumer.accept(z, cursor, to);
+        }
+    }
+
+    private static List<ChunkRect> sortedByMinZ(List<ChunkRect> rects) {
+        List<ChunkRect> sorted = new ArrayList<>(rects);
+        sorted.sort(Comparator.comparingInt(ChunkRect::minZ));
+        return sorted;
+    }
+
+    // Rectangles overlapping the current row, in a sweep over increasing Z
+    private static class Sweep {
+        private final List<ChunkRect> rects;
+        private final List<ChunkRect> active = new ArrayList<>();
+        private int next;
+
+        Sweep(List<ChunkRect> rects) {
+            this.rects = rects;
+        }
+
+        void advance(int z) {
+            while (next < rects.size() && rects.get(next).minZ() <= z) {
+                active.add(rects.get(next++));
+            }
+            active.removeIf(rect -> rect.maxZ() < z);
+        }
+
+        int nextMinZ() {
+            return next < rects.size() ? rects.get(next).minZ() : Integer.MAX_VALUE;
+        }
+
+        void collect(Intervals row) {
+            row.clear();
+            for (ChunkRect rect : active) {
+                row.add(rect.minX(), rect.maxX());
+            }
+            row.merge();
+        }
+    }
+
+    // Reusable buffer of [start, end] pairs
+    private static class Intervals {
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private long[] order = new long[16];
+        private int[] sortedStarts = new int[16];
+        private int[] sortedEnds = new int[16];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        // Sort by start and merge overlapping or touching intervals
+        void merge() {
+            if (size < 2) return;
+
+            if (order.length < size) {
+                order = new long[starts.length];
+                sortedStarts = new int[starts.length];
+                sortedEnds = new int[starts.length];
+            }
+
+            // Sort positions by start (start in the high half, position in the low half)
+            for (int i = 0; i < size; i++) {
+                order[i] = ((long) starts[i] << 32) | i;
+            }
+            Arrays.sort(order, 0, size);
+
+            for (int i = 0; i < size; i++) {
+                int index = (int) order[i];
+                sortedStarts[i] = starts[index];
+                sortedEnds[i] = ends[index];
+            }
+
+            int merged = 0;
+            for (int i = 0; i < size; i++) {
+                if (merged > 0 && (long) sortedStarts[i] <= (long) ends[merged - 1] + 1) {
+                    ends[merged - 1] = Math.max(ends[merged - 1], sortedEnds[i]);
+                } else {
+                    starts[merged] = sortedStarts[i];
+                    ends[merged] = sortedEnds[i];
+                    merged++;
+                }
+            }
+            size = merged;
+        }
+    }
+}
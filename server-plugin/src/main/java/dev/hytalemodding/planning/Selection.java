@@ -0,0 +1,11 @@
+package dev.hytalemodding.planning;
+
+import dev.hytalemodding.world.pos.BlockPos;
+
+// A saved base: the chunk holding the origin block plus `radius` chunks around it
+public record Selection(int id, BlockPos origin, int radius) {
+
+    public ChunkRect chunks() {
+        return ChunkRect.around(origin.chunkX(), origin.chunkZ(), radius);
+    }
+}
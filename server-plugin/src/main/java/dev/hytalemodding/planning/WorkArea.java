@@ -0,0 +1,48 @@
+package dev.hytalemodding.planning;
+
+import dev.hytalemodding.world.chunk.ChunkInventory;
+import dev.hytalemodding.world.chunk.Regions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The part of the world a protect-mode plan is allowed to touch
+public interface WorkArea {
+
+    List<ChunkRect> rects();
+
+    static WorkArea radius(int chunkX, int chunkZ, int radius) {
+        ChunkRect rect = ChunkRect.around(chunkX, chunkZ, radius);
+        return () -> List.of(rect);
+    }
+
+    static WorkArea box(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        ChunkRect rect = new ChunkRect(
+                Math.min(minChunkX, maxChunkX), Math.min(minChunkZ, maxChunkZ),
+                Math.max(minChunkX, maxChunkX), Math.max(minChunkZ, maxChunkZ)
+        );
+        return () -> List.of(rect);
+    }
+
+    // Union of squares around every base, so outposts get their surroundings too
+    static WorkArea around(List<ChunkRect> bases, int radius) {
+        List<ChunkRect> rects = new ArrayList<>(bases.size());
+        for (ChunkRect base : bases) {
+            rects.add(new ChunkRect(base.minX() - radius, base.minZ() - radius, base.maxX() + radius, base.maxZ() + radius));
+        }
+        return () -> rects;
+    }
+
+    // Every region that has chunks on disk; combine with ProtectionPlanner.onlyWhere(inventory::contains)
+    static WorkArea onDisk(ChunkInventory inventory) {
+        return () -> {
+            List<ChunkRect> rects = new ArrayList<>();
+            inventory.forEachRegion(regionKey -> {
+                int minX = Regions.xOfKey(regionKey) << Regions.SHIFT;
+                int minZ = Regions.zOfKey(regionKey) << Regions.SHIFT;
+                rects.add(new ChunkRect(minX, minZ, minX + Regions.SIZE - 1, minZ + Regions.SIZE - 1));
+            });
+            return rects;
+        };
+    }
+}
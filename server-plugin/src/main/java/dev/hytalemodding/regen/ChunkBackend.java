@@ -0,0 +1,36 @@
+package dev.hytalemodding.regen;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+// The storage operations the regeneration pipeline needs from a world
+public interface ChunkBackend {
+
+    // Load the chunk, generating it if it isn't stored. Must be called on the world thread.
+    CompletableFuture<Void> load(long chunkIndex);
+
+    // Drop the chunk from memory. Must be called on the world thread.
+    void unload(long chunkIndex);
+
+    // Delete the chunk from disk. Completes once the saver has processed it.
+    CompletableFuture<Void> remove(int chunkX, int chunkZ);
+
+    // The chunk as stored on disk, serialized, or null if it isn't stored
+    CompletableFuture<byte[]> read(int chunkX, int chunkZ);
+
+    // Store a chunk serialized by read. It must not be loaded.
+    CompletableFuture<Void> write(int chunkX, int chunkZ, byte[] data);
+
+    // Write out everything the saver has buffered
+    void flush() throws IOException;
+
+    // True if the chunk is currently loaded in memory
+    boolean isLoaded(long chunkIndex);
+
+    // True if the region file for these region coordinates exists on disk
+    boolean hasRegion(int regionX, int regionZ);
+
+    // One bit per chunk stored in the region file, bit i for Regions.localIndex i,
+    // or null if the file doesn't exist. Chunks the saver still buffers are missing.
+    long[] storedChunks(int regionX, int regionZ) throws IOException;
+}
@@ -0,0 +1,117 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import dev.hytalemodding.metrics.RegenMetrics;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Generates the chunks a job removed, nearest to players first, so new terrain
+// is paid for in the background instead of by whoever walks there first. Only
+// a few requests are in flight at once, and each chunk is unloaded again as
+// soon as it exists so memory stays flat.
+public class ChunkPregenerator {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 8;
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final RegenMetrics METRICS = RegenMetrics.get();
+
+    private final ChunkBackend backend;
+    private final long[] chunks; // In the order they are requested
+    private final int maxInFlight;
+    private int next;
+    private volatile boolean stopped; // No new requests; what is in flight still finishes and unloads
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Long> generated = new ConcurrentLinkedQueue<>(); // Waiting to be unloaded
+    private final LongAdder done = new LongAdder();
+
+    public ChunkPregenerator(ChunkBackend backend, long[] chunks, PlayerProximity players) {
+        this(backend, chunks, players, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    // Ordered once, from where players stand now
+    public ChunkPregenerator(ChunkBackend backend, long[] chunks, PlayerProximity players, int maxInFlight) {
+        this.backend = backend;
+        this.chunks = players.isEmpty() ? chunks : byDistance(chunks, players);
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    // Unload what finished, then request more while the budget allows. World thread only.
+    public void process(TickBudget budget, int maxSubmits, PlayerProximity players) {
+        int count = 0;
+
+        Long chunkIndex;
+        while ((count == 0 || budget.hasTimeLeft()) && (chunkIndex = generated.poll()) != null) {
+            // Chunks players can see stay loaded, as if they had walked there
+            if (!players.isNear(chunkIndex)) {
+                long start = System.nanoTime();
+                backend.unload(chunkIndex);
+                budget.record(System.nanoTime() - start);
+            }
+            count++;
+        }
+
+        while (!stopped && next < chunks.length && inFlight.get() < maxInFlight && count < maxSubmits && (count == 0 || budget.hasTimeLeft())) {
+            long requested = chunks[next++];
+            count++;
+
+            long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            backend.load(requested).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    METRICS.error("pregenerate", error);
+                    LOGGER.atWarning().withCause(error).log("Error generating chunk %s,%s",
+                            ChunkUtil.xOfChunkIndex(requested), ChunkUtil.zOfChunkIndex(requested));
+                } else {
+                    METRICS.chunkGenerated(System.nanoTime() - start);
+                    generated.add(requested);
+                }
+                done.increment();
+                inFlight.decrementAndGet();
+            });
+            budget.record(System.nanoTime() - start);
+        }
+    }
+
+    // Everything requested (or stopped), generated and unloaded
+    public boolean isDone() {
+        return (stopped || next == chunks.length) && inFlight.get() == 0 && generated.isEmpty();
+    }
+
+    // Request nothing more. Keep calling process until isDone so the chunks
+    // already loading are unloaded too.
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public long getDone() {
+        return done.sum();
+    }
+
+    public int size() {
+        return chunks.length;
+    }
+
+    private static long[] byDistance(long[] chunks, PlayerProximity players) {
+        // Distance in the high bits, position in the low bits: one primitive sort
+        long[] keys = new long[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            keys[i] = (long) players.distance(chunks[i]) << 32 | i;
+        }
+        Arrays.sort(keys);
+
+        long[] sorted = new long[chunks.length];
+        for (int i = 0; i < keys.length; i++) sorted[i] = chunks[(int) keys[i]];
+        return sorted;
+    }
+}
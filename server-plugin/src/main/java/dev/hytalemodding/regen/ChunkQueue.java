@@ -0,0 +1,161 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import dev.hytalemodding.world.chunk.ChunkInventory;
+import dev.hytalemodding.world.chunk.ChunkOrder;
+import dev.hytalemodding.world.chunk.Regions;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+
+// Chunk indexes of a job, grouped by region file and consumed in order
+public class ChunkQueue {
+
+    private final long[] chunks;
+    private int cursor;
+
+    // Targeted but not on disk: only worth removing if loaded, which is checked on the world thread
+    private final long[] unstored;
+    private int unstoredCursor;
+    private int loadedFound;
+
+    // Chunks postponed while players were near them, handled after everything else
+    private long[] deferred = new long[0];
+    private int deferredCount;
+    private int deferredCursor;
+    private boolean deferredPhase;
+
+    private ChunkQueue(long[] chunks, long[] unstored) {
+        this.chunks = chunks;
+        this.unstored = unstored;
+    }
+
+    // Sorts the chunks by region and sets aside the ones not on disk. With an
+    // inventory that is decided per chunk; without one, per region file. Doesn't
+    // touch loaded chunks, so it can run off the world thread.
+    public static ChunkQueue of(long[] chunkIndexes, ChunkOrder order, ChunkBackend backend, ChunkInventory inventory) {
+        long[] sorted = order.sort(chunkIndexes.clone());
+        long[] unstored = new long[16];
+        int unstoredCount = 0;
+
+        int kept = 0;
+        int regionStart = 0;
+        while (regionStart < sorted.length) {
+            long region = regionKey(sorted[regionStart]);
+
+            boolean hasFile = inventory != null || backend.hasRegion(Regions.xOfKey(region), Regions.zOfKey(region));
+
+            // Collect this region's chunks, dropping duplicates
+            int regionKept = kept;
+            int i = regionStart;
+            long previous = 0;
+            while (i < sorted.length && regionKey(sorted[i]) == region) {
+                long chunkIndex = sorted[i++];
+                if (i - 1 > regionStart && previous == chunkIndex) continue;
+                previous = chunkIndex;
+
+                if (hasFile && (inventory == null || inventory.contains(chunkIndex))) {
+                    sorted[regionKept++] = chunkIndex;
+                } else {
+                    if (unstoredCount == unstored.length) unstored = Arrays.copyOf(unstored, unstoredCount * 2);
+                    unstored[unstoredCount++] = chunkIndex;
+                }
+            }
+
+            kept = regionKept;
+            regionStart = i;
+        }
+
+        return new ChunkQueue(Arrays.copyOf(sorted, kept), Arrays.copyOf(unstored, unstoredCount));
+    }
+
+    // Check up to max chunks that aren't on disk and queue the loaded ones with
+    // the deferred chunks: they are the ones near players. World thread only.
+    public void checkUnstored(LongPredicate loaded, int max) {
+        int end = Math.min(unstored.length, unstoredCursor + max);
+        for (; unstoredCursor < end; unstoredCursor++) {
+            if (loaded.test(unstored[unstoredCursor])) {
+                defer(unstored[unstoredCursor]);
+                loadedFound++;
+            }
+        }
+    }
+
+    public boolean hasUnstored() {
+        return unstoredCursor < unstored.length;
+    }
+
+    public static long regionKey(long chunkIndex) {
+        return Regions.key(
+                Regions.regionOf(ChunkUtil.xOfChunkIndex(chunkIndex)),
+                Regions.regionOf(ChunkUtil.zOfChunkIndex(chunkIndex))
+        );
+    }
+
+    public boolean isEmpty() {
+        return cursor >= chunks.length && !hasUnstored() && deferredCursor >= deferredCount;
+    }
+
+    public boolean hasChunk() {
+        return cursor < chunks.length || (deferredPhase && deferredCursor < deferredCount);
+    }
+
+    public long poll() {
+        return cursor < chunks.length ? chunks[cursor++] : deferred[deferredCursor++];
+    }
+
+    public long peek() {
+        return cursor < chunks.length ? chunks[cursor] : deferred[deferredCursor];
+    }
+
+    // Put a chunk aside until the rest of the queue is done
+    public void defer(long chunkIndex) {
+        if (deferredCount == deferred.length) deferred = Arrays.copyOf(deferred, Math.max(16, deferredCount * 2));
+        deferred[deferredCount++] = chunkIndex;
+    }
+
+    public boolean isDeferredPhase() {
+        return deferredPhase;
+    }
+
+    // True once only postponed chunks are left
+    public boolean needsDeferredPhase() {
+        return !deferredPhase && cursor >= chunks.length && !hasUnstored() && deferredCount > 0;
+    }
+
+    // Switch to the postponed chunks, largest distance first
+    public void startDeferredPhase(LongToIntFunction distance) {
+        long[] keys = new long[deferredCount];
+        for (int i = 0; i < deferredCount; i++) {
+            keys[i] = ((long) -Math.min(distance.applyAsInt(deferred[i]), Integer.MAX_VALUE - 1) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        long[] sorted = new long[deferredCount];
+        for (int i = 0; i < deferredCount; i++) {
+            sorted[i] = deferred[(int) keys[i]];
+        }
+        deferred = sorted;
+        deferredPhase = true;
+    }
+
+    // Move matching chunks to the front, keeping region order within both groups
+    public void prioritize(LongPredicate first) {
+        long[] reordered = new long[chunks.length - cursor];
+        int front = 0;
+        for (int i = cursor; i < chunks.length; i++) {
+            if (first.test(chunks[i])) reordered[front++] = chunks[i];
+        }
+        int back = front;
+        for (int i = cursor; i < chunks.length; i++) {
+            if (!first.test(chunks[i])) reordered[back++] = chunks[i];
+        }
+        System.arraycopy(reordered, 0, chunks, cursor, reordered.length);
+    }
+
+    // Chunks on disk, plus the loaded ones found so far
+    public int size() {
+        return chunks.length + loadedFound;
+    }
+}
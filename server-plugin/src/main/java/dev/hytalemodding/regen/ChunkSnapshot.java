@@ -0,0 +1,367 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Copy of every chunk a job removes, taken between its unload and its delete so that
+// /rechunk restore can put it back. Chunks are deflated into an append-only
+// pack, and identical ones (open ocean, untouched terrain) are stored once.
+// One writer thread owns the files and syncs once per group of chunks; a
+// chunk's delete only starts after its copy is on disk.
+//
+// Layout, in <snapshots>/<job id>/:
+// pack.bin:  MAGIC, world name, then [raw length, deflated length, deflated bytes]*
+// index.bin: [chunk index, pack offset, first 16 bytes of the SHA-256 of the raw bytes]*
+public class ChunkSnapshot implements Closeable {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final int MAGIC = 0x52435031; // "RCP1"
+    private static final int ENTRY_BYTES = 32;
+    private static final int MAX_GROUP = 256; // Chunks written per sync
+    private static final String PACK = "pack.bin";
+    private static final String INDEX = "index.bin";
+
+    private static Path directory; // null until the plugin has set it up
+
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        void accept(long chunkIndex, byte[] data) throws IOException;
+    }
+
+    private record Hash(long high, long low) {}
+
+    private record Pending(long chunkIndex, byte[] data, CompletableFuture<Void> done) {}
+
+    private final String jobId;
+    private final FileChannel pack;
+    private final FileChannel index;
+
+    // Only the writer thread touches these
+    private final Map<Hash, Long> blobs; // Pack offset of each distinct chunk
+    private final MessageDigest digest = sha256();
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED); // Chunks are uncompressed BSON; the fastest level keeps up with deletes
+    private byte[] deflated = new byte[64 * 1024];
+
+    // Holds at most what the pipeline has in flight, so memory stays bounded by its backpressure
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile IOException failure; // Once set, nothing more is written or removed
+
+    private ChunkSnapshot(String jobId, FileChannel pack, FileChannel index, Map<Hash, Long> blobs) {
+        this.jobId = jobId;
+        this.pack = pack;
+        this.index = index;
+        this.blobs = blobs;
+
+        this.writer = new Thread(this::writeLoop, "rechunk-snapshot-" + jobId);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static void setDirectory(Path directory) {
+        ChunkSnapshot.directory = directory;
+    }
+
+    public static boolean isEnabled() {
+        return directory != null;
+    }
+
+    public static boolean exists(String jobId) {
+        return directory != null && RegenJob.isValidId(jobId) && Files.exists(directory.resolve(jobId).resolve(INDEX));
+    }
+
+    // Job ids of every snapshot on disk, restorable or not
+    public static List<String> list() throws IOException {
+        List<String> jobIds = new ArrayList<>();
+        if (directory == null || !Files.isDirectory(directory)) return jobIds;
+
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                String jobId = dir.getFileName().toString();
+                if (RegenJob.isValidId(jobId)) jobIds.add(jobId);
+            }
+        }
+        return jobIds;
+    }
+
+    // Bytes the snapshot takes on disk
+    public static long sizeOf(String jobId) throws IOException {
+        Path dir = directoryOf(jobId);
+        return Files.size(dir.resolve(PACK)) + Files.size(dir.resolve(INDEX));
+    }
+
+    // Only for snapshots no job is still writing to
+    public static void delete(String jobId) throws IOException {
+        Path dir = directoryOf(jobId);
+        Files.deleteIfExists(dir.resolve(INDEX));
+        Files.deleteIfExists(dir.resolve(PACK));
+        Files.deleteIfExists(dir);
+    }
+
+    // Never outside the snapshots directory, whatever a player typed
+    private static Path directoryOf(String jobId) throws IOException {
+        if (!RegenJob.isValidId(jobId)) throw new IOException("Not a job id: " + jobId);
+        return directory.resolve(jobId);
+    }
+
+    public static ChunkSnapshot create(String jobId, String worldName) throws IOException {
+        Path dir = directoryOf(jobId);
+        Files.createDirectories(dir);
+
+        byte[] world = worldName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(8 + world.length);
+        header.putInt(MAGIC).putInt(world.length).put(world).flip();
+
+        FileChannel pack = FileChannel.open(dir.resolve(PACK),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(dir.resolve(INDEX),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        while (header.hasRemaining()) pack.write(header);
+        pack.force(false);
+
+        return new ChunkSnapshot(jobId, pack, index, new HashMap<>());
+    }
+
+    // Keep adding to the snapshot of a resumed job. A torn last index entry is dropped.
+    public static ChunkSnapshot reopen(String jobId) throws IOException {
+        Path dir = directoryOf(jobId);
+        FileChannel pack = FileChannel.open(dir.resolve(PACK), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(dir.resolve(INDEX), StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        Map<Hash, Long> blobs = new HashMap<>();
+        long valid = index.size() / ENTRY_BYTES * ENTRY_BYTES;
+        forEachEntry(index, valid, entry -> blobs.put(new Hash(entry.getLong(16), entry.getLong(24)), entry.getLong(8)));
+
+        index.truncate(valid);
+        index.position(valid);
+        pack.position(pack.size());
+        return new ChunkSnapshot(jobId, pack, index, blobs);
+    }
+
+    // Completes once the chunk's stored data is safely in the snapshot. Reads the
+    // stored copy: call once the chunk is unloaded and the saver flushed. Chunks
+    // that were never stored have nothing to keep and complete right away.
+    public CompletableFuture<Void> capture(ChunkBackend backend, long chunkIndex) {
+        if (failure != null) return CompletableFuture.failedFuture(failure);
+
+        return backend.read(ChunkUtil.xOfChunkIndex(chunkIndex), ChunkUtil.zOfChunkIndex(chunkIndex))
+                .thenCompose(data -> {
+                    if (data == null) return CompletableFuture.completedFuture(null);
+
+                    if (closed) return CompletableFuture.failedFuture(new IOException("Snapshot of job " + jobId + " is closed"));
+
+                    Pending pending = new Pending(chunkIndex, data, new CompletableFuture<>());
+                    queue.add(pending);
+                    return pending.done();
+                });
+    }
+
+    // Write what is queued, then stop. The files stay for /rechunk restore.
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pack.close();
+        index.close();
+        deflater.end();
+    }
+
+    private void writeLoop() {
+        List<Pending> group = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP - 1);
+                writeGroup(group);
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                group.clear();
+            }
+        }
+
+        // Anything that raced with close
+        Pending left;
+        while ((left = queue.poll()) != null) {
+            left.done().completeExceptionally(new IOException("Snapshot of job " + jobId + " is closed"));
+        }
+    }
+
+    // Blobs first and synced, then the index entries pointing at them: an entry
+    // on disk always has its data
+    private void writeGroup(List<Pending> group) {
+        if (failure != null) {
+            for (Pending pending : group) pending.done().completeExceptionally(failure);
+            return;
+        }
+
+        try {
+            ByteBuffer entries = ByteBuffer.allocate(group.size() * ENTRY_BYTES);
+            for (Pending pending : group) {
+                byte[] sha = digest.digest(pending.data());
+                Hash hash = new Hash(ByteBuffer.wrap(sha).getLong(0), ByteBuffer.wrap(sha).getLong(8));
+
+                Long offset = blobs.get(hash);
+                if (offset == null) {
+                    offset = appendBlob(pending.data());
+                    blobs.put(hash, offset);
+                }
+                entries.putLong(pending.chunkIndex()).putLong(offset).putLong(hash.high()).putLong(hash.low());
+            }
+            pack.force(false);
+
+            entries.flip();
+            while (entries.hasRemaining()) index.write(entries);
+            index.force(false);
+        } catch (IOException e) {
+            failure = e;
+            LOGGER.atSevere().withCause(e).log("Could not write snapshot of job %s; its remaining chunks are kept", jobId);
+        }
+
+        for (Pending pending : group) {
+            if (failure != null) pending.done().completeExceptionally(failure);
+            else pending.done().complete(null);
+        }
+    }
+
+    private long appendBlob(byte[] data) throws IOException {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == deflated.length) deflated = Arrays.copyOf(deflated, length * 2);
+            length += deflater.deflate(deflated, length, deflated.length - length);
+        }
+
+        long offset = pack.position();
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(data.length).putInt(length).flip();
+        ByteBuffer body = ByteBuffer.wrap(deflated, 0, length);
+        while (header.hasRemaining() || body.hasRemaining()) pack.write(new ByteBuffer[] {header, body});
+        return offset;
+    }
+
+    // Reading, for restores. Safe while the job runs: only synced entries are visible.
+
+    public static String worldOf(String jobId) throws IOException {
+        try (FileChannel pack = FileChannel.open(directoryOf(jobId).resolve(PACK), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            readFully(pack, header, 0);
+            if (header.getInt(0) != MAGIC) throw new IOException("Not a chunk snapshot");
+
+            ByteBuffer name = ByteBuffer.allocate(header.getInt(4));
+            readFully(pack, name, 8);
+            return new String(name.array(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public static long[] chunksOf(String jobId) throws IOException {
+        try (FileChannel index = FileChannel.open(directoryOf(jobId).resolve(INDEX), StandardOpenOption.READ)) {
+            long valid = index.size() / ENTRY_BYTES * ENTRY_BYTES;
+            long[] chunks = new long[Math.toIntExact(valid / ENTRY_BYTES)];
+            int[] count = {0};
+            forEachEntry(index, valid, entry -> chunks[count[0]++] = entry.getLong(0));
+            return chunks;
+        }
+    }
+
+    // Streams every chunk back, one at a time, in the order they were taken
+    public static void forEachChunk(String jobId, ChunkConsumer consumer) throws IOException {
+        Path dir = directoryOf(jobId);
+        try (FileChannel pack = FileChannel.open(dir.resolve(PACK), StandardOpenOption.READ);
+             FileChannel index = FileChannel.open(dir.resolve(INDEX), StandardOpenOption.READ)) {
+            Inflater inflater = new Inflater();
+            ByteBuffer header = ByteBuffer.allocate(8);
+            try {
+                forEachEntry(index, index.size() / ENTRY_BYTES * ENTRY_BYTES, entry -> {
+                    long offset = entry.getLong(8);
+                    header.clear();
+                    readFully(pack, header, offset);
+
+                    ByteBuffer compressed = ByteBuffer.allocate(header.getInt(4));
+                    readFully(pack, compressed, offset + 8);
+
+                    byte[] data = new byte[header.getInt(0)];
+                    inflater.reset();
+                    inflater.setInput(compressed.array());
+                    try {
+                        if (inflater.inflate(data) != data.length) throw new IOException("Corrupt snapshot blob at " + offset);
+                    } catch (DataFormatException e) {
+                        throw new IOException("Corrupt snapshot blob at " + offset, e);
+                    }
+
+                    consumer.accept(entry.getLong(0), data);
+                });
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private interface EntryConsumer {
+        void accept(ByteBuffer entry) throws IOException;
+    }
+
+    private static void forEachEntry(FileChannel index, long length, EntryConsumer consumer) throws IOException {
+        ByteBuffer entries = ByteBuffer.allocate(ENTRY_BYTES * 1024);
+        for (long position = 0; position < length; ) {
+            entries.clear().limit((int) Math.min(entries.capacity(), length - position));
+            readFully(index, entries, position);
+            position += entries.limit();
+
+            for (int i = 0; i < entries.limit(); i += ENTRY_BYTES) {
+                consumer.accept(entries.slice(i, ENTRY_BYTES));
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Truncated snapshot");
+        }
+        buffer.flip();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.modules.entity.player.ChunkTracker;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+// Makes clients reload regenerated chunks they currently have, and nothing else
+public class ClientChunkRefresher {
+
+    // World thread only
+    public static void refresh(World world, long[] chunkIndexes) {
+        if (chunkIndexes.length == 0) return;
+
+        Store<EntityStore> store = world.getEntityStore().getStore();
+        for (PlayerRef player : world.getPlayerRefs()) {
+            try {
+                Ref<EntityStore> ref = player.getReference();
+                if (ref == null) continue;
+
+                ChunkTracker tracker = store.getComponent(ref, ChunkTracker.getComponentType());
+                if (tracker == null) continue;
+
+                for (long chunkIndex : chunkIndexes) {
+                    if (tracker.isLoaded(chunkIndex)) tracker.removeForReload(chunkIndex);
+                }
+            } catch (Exception ignored) {}
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package dev.hytalemodding.regen;
+
+import dev.hytalemodding.metrics.RegenMetrics;
+import dev.hytalemodding.planning.ProtectionPlanner;
+import dev.hytalemodding.world.chunk.ChunkInventory;
+import dev.hytalemodding.world.chunk.Regions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// What a regeneration would do, without doing it. Built from the planner's
+// rows and the inventory's region bitmaps, so its cost depends on rows and
+// regions, never on how many chunks the plan covers.
+public class DryRun {
+
+    public record RegionCount(int regionX, int regionZ, int targeted, int stored, boolean emptied) {}
+
+    private static final double DEFAULT_CHUNKS_PER_SECOND = 200; // Until a job has been measured
+    private static final int MAP_CELLS = 24; // Widest map preview, in characters
+    private static final int TOP_REGIONS = 5;
+
+    private final boolean hasInventory;
+    private final List<RegionCount> regions;
+    private long targeted;
+    private long stored;
+    private int emptiedRegions;
+
+    private DryRun(boolean hasInventory, List<RegionCount> regions) {
+        this.hasInventory = hasInventory;
+        this.regions = regions;
+        for (RegionCount region : regions) {
+            targeted += region.targeted();
+            stored += region.stored();
+            if (region.emptied()) emptiedRegions++;
+        }
+    }
+
+    // rows: e.g. planner::forEachRow or area::forEachRow. Without an inventory every chunk counts as stored.
+    public static DryRun of(Consumer<ProtectionPlanner.RowConsumer> rows, ChunkInventory inventory) {
+        Map<Long, int[]> counts = new HashMap<>(); // targeted, stored
+
+        rows.accept((z, fromX, toX) -> {
+            // Split the run at region borders
+            int x = fromX;
+            while (x <= toX) {
+                int end = Math.min(toX, (Regions.regionOf(x) << Regions.SHIFT) + Regions.SIZE - 1);
+                int[] count = counts.computeIfAbsent(Regions.key(Regions.regionOf(x), Regions.regionOf(z)), key -> new int[2]);
+
+                count[0] += end - x + 1;
+                count[1] += inventory == null ? end - x + 1 : inventory.countRow(z, x, end);
+                x = end + 1;
+            }
+        });
+
+        List<RegionCount> regions = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> {
+            int regionX = Regions.xOfKey(key);
+            int regionZ = Regions.zOfKey(key);
+
+            // Every chunk the file holds is targeted
+            boolean emptied = inventory == null
+                    ? count[0] == Regions.CHUNKS_PER_REGION
+                    : count[1] > 0 && count[1] == inventory.count(regionX, regionZ);
+            regions.add(new RegionCount(regionX, regionZ, count[0], count[1], emptied));
+        });
+        return new DryRun(inventory != null, regions);
+    }
+
+    public long getTargeted() {
+        return targeted;
+    }
+
+    // Chunks that would actually be removed
+    public long getStored() {
+        return stored;
+    }
+
+    public int getEmptiedRegions() {
+        return emptiedRegions;
+    }
+
+    public List<RegionCount> getRegions() {
+        return regions;
+    }
+
+    // Sustained removal speed: what jobs reached recently, else what measured latencies allow
+    public static double chunksPerSecond(RegenMetrics metrics) {
+        double recent = metrics.getChunksPerSecond();
+        if (recent > 0) return recent;
+
+        double rate = Double.MAX_VALUE;
+        if (metrics.getRemoveMeanNanos() > 0) {
+            rate = Math.min(rate, RemovalPipeline.DEFAULT_MAX_IN_FLIGHT * 1e9 / metrics.getRemoveMeanNanos());
+        }
+        if (metrics.getUnloadMeanNanos() > 0) {
+            rate = Math.min(rate, (double) TickBudget.TICKS_PER_SECOND * TickBudget.DEFAULT_BUDGET_NANOS / metrics.getUnloadMeanNanos());
+        }
+        return rate == Double.MAX_VALUE ? 0 : rate;
+    }
+
+    public List<String> report(RegenMetrics metrics) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Dry run: %d chunks in %d regions would be regenerated (%d regions emptied).",
+                stored, regions.size(), emptiedRegions));
+
+        if (!hasInventory) {
+            lines.add("Chunk list unavailable: counted every targeted chunk as stored.");
+        } else if (targeted > stored) {
+            lines.add((targeted - stored) + " targeted chunks were never generated and are skipped.");
+        }
+
+        double rate = chunksPerSecond(metrics);
+        String source = rate > 0 ? "measured" : "no jobs measured yet";
+        if (rate <= 0) rate = DEFAULT_CHUNKS_PER_SECOND;
+
+        lines.add(String.format("Estimated time: %s at %.0f chunks/s (%s).",
+                duration((long) Math.ceil(stored / rate)), rate, source));
+
+        List<RegionCount> top = new ArrayList<>(regions);
+        top.sort((a, b) -> Integer.compare(b.stored(), a.stored()));
+        StringBuilder busiest = new StringBuilder("Busiest regions:");
+        for (int i = 0; i < Math.min(TOP_REGIONS, top.size()); i++) {
+            RegionCount region = top.get(i);
+            busiest.append(' ').append(region.regionX()).append(',').append(region.regionZ())
+                    .append('=').append(region.stored()).append(region.emptied() ? " (all)" : "");
+        }
+        if (!top.isEmpty()) lines.add(busiest.toString());
+
+        lines.addAll(map());
+        return lines;
+    }
+
+    // One character per region (or block of regions on large plans):
+    // # everything stored removed, + chunks removed, . targeted but nothing stored, - untouched
+    public List<String> map() {
+        List<String> lines = new ArrayList<>();
+        if (regions.isEmpty()) return lines;
+
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (RegionCount region : regions) {
+            minX = Math.min(minX, region.regionX());
+            minZ = Math.min(minZ, region.regionZ());
+            maxX = Math.max(maxX, region.regionX());
+            maxZ = Math.max(maxZ, region.regionZ());
+        }
+
+        int scale = Math.max(1, (Math.max(maxX - minX, maxZ - minZ) + MAP_CELLS) / MAP_CELLS);
+        int width = (maxX - minX) / scale + 1;
+        int height = (maxZ - minZ) / scale + 1;
+
+        char[][] cells = new char[height][width];
+        for (char[] row : cells) Arrays.fill(row, '-');
+        for (RegionCount region : regions) {
+            int row = (region.regionZ() - minZ) / scale;
+            int column = (region.regionX() - minX) / scale;
+            cells[row][column] = strongest(cells[row][column], region.emptied() ? '#' : region.stored() > 0 ? '+' : '.');
+        }
+
+        lines.add(String.format("Map from region %d,%d (%dx%d regions per character; # all, + some, . nothing stored, - untouched):",
+                minX, minZ, scale, scale));
+        for (char[] row : cells) lines.add(new String(row));
+        return lines;
+    }
+
+    private static char strongest(char current, char next) {
+        String order = "-.+#";
+        return order.indexOf(next) > order.indexOf(current) ? next : current;
+    }
+
+    // h:mm:ss, or m:ss under an hour
+    public static String duration(long seconds) {
+        if (seconds >= 3600) return String.format("%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
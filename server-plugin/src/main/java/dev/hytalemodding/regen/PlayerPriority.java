@@ -0,0 +1,15 @@
+package dev.hytalemodding.regen;
+
+// How a job orders chunks relative to where players are
+public enum PlayerPriority {
+
+    // Plain region order
+    IGNORE,
+
+    // Chunks in a player's view are postponed until everything else is done,
+    // then handled farthest first
+    NEAREST_LAST,
+
+    // Chunks in a player's view go first, so changes show up where people are
+    NEAREST_FIRST
+}
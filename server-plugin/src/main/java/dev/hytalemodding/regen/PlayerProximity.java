@@ -0,0 +1,80 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.Arrays;
+
+// Snapshot of the chunk every player of a world stands in
+public class PlayerProximity {
+
+    public static final int DEFAULT_VIEW_RADIUS = 12; // Chunks
+
+    public static final PlayerProximity NONE = new PlayerProximity(new int[0], new int[0], DEFAULT_VIEW_RADIUS);
+
+    private final int[] playerX;
+    private final int[] playerZ;
+    private final int viewRadius;
+
+    private PlayerProximity(int[] playerX, int[] playerZ, int viewRadius) {
+        this.playerX = playerX;
+        this.playerZ = playerZ;
+        this.viewRadius = viewRadius;
+    }
+
+    // World thread only
+    public static PlayerProximity capture(World world, int viewRadius) {
+        Store<EntityStore> store = world.getEntityStore().getStore();
+
+        int[] xs = new int[8];
+        int[] zs = new int[8];
+        int count = 0;
+
+        for (PlayerRef player : world.getPlayerRefs()) {
+            Ref<EntityStore> ref = player.getReference();
+            if (ref == null) continue;
+
+            TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
+            if (transform == null) continue;
+
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, count * 2);
+                zs = Arrays.copyOf(zs, count * 2);
+            }
+
+            Vector3d position = transform.getPosition();
+            xs[count] = ChunkUtil.chunkCoordinate((int) Math.floor(position.getX()));
+            zs[count] = ChunkUtil.chunkCoordinate((int) Math.floor(position.getZ()));
+            count++;
+        }
+
+        return new PlayerProximity(Arrays.copyOf(xs, count), Arrays.copyOf(zs, count), viewRadius);
+    }
+
+    // Chebyshev distance in chunks to the closest player, Integer.MAX_VALUE without players
+    public int distance(long chunkIndex) {
+        int chunkX = ChunkUtil.xOfChunkIndex(chunkIndex);
+        int chunkZ = ChunkUtil.zOfChunkIndex(chunkIndex);
+
+        int best = Integer.MAX_VALUE;
+        for (int i = 0; i < playerX.length; i++) {
+            best = Math.min(best, Math.max(Math.abs(playerX[i] - chunkX), Math.abs(playerZ[i] - chunkZ)));
+        }
+        return best;
+    }
+
+    // Inside any player's view distance
+    public boolean isNear(long chunkIndex) {
+        return distance(chunkIndex) <= viewRadius;
+    }
+
+    public boolean isEmpty() {
+        return playerX.length == 0;
+    }
+}
@@ -0,0 +1,374 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import dev.hytalemodding.managers.ChunkInventoryManager;
+import dev.hytalemodding.metrics.RegenMetrics;
+import dev.hytalemodding.metrics.RollingRate;
+import dev.hytalemodding.world.chunk.ChunkInventory;
+import dev.hytalemodding.world.chunk.ChunkOrder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// One regeneration request: the ordered queue, its removal pipeline, its journal
+// and optionally a snapshot of what it removes. A job that asks for it then
+// generates the removed chunks again before it is done.
+public class RegenJob {
+
+    public enum State { RUNNING, PAUSED, CANCELLED, FINISHING, GENERATING }
+
+    public static final long NO_REGION = Long.MIN_VALUE;
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final int MAX_DEFERRALS_PER_TICK = 4096;
+    private static final int MAX_UNSTORED_CHECKS_PER_TICK = 8192;
+
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{8}");
+
+    private final String id;
+    private final World world; // null for detached jobs
+    private final PlayerRef owner; // null for jobs resumed after a restart
+    private final UUID ownerId; // null if nobody started the job
+    private final ChunkBackend backend;
+    private final ChunkQueue queue;
+    private final RemovalPipeline pipeline;
+    private final RegenJournal journal; // null only for detached jobs
+    private final ChunkSnapshot snapshot; // null when not requested
+    private final long[] chunkIndexes; // Everything this job claimed, before filtering
+    private final PlayerPriority priority;
+    private boolean prioritized;
+
+    // Only kept when the job pre-generates afterwards
+    private final boolean pregenerate;
+    private long[] removedChunks = new long[0];
+    private int removedCount;
+    private volatile ChunkPregenerator pregenerator; // Set on the world thread
+
+    private volatile State state = State.RUNNING;
+    private volatile int submitted;
+
+    // Progress, cheap to read from any thread
+    private final LongAdder removed = new LongAdder();
+    private final RollingRate throughput = new RollingRate();
+    private volatile long currentRegion = NO_REGION;
+
+    private RegenJob(String id, World world, PlayerRef owner, UUID ownerId, ChunkBackend backend, ChunkQueue queue, RemovalPipeline pipeline, RegenJournal journal, ChunkSnapshot snapshot, long[] chunkIndexes, PlayerPriority priority, boolean pregenerate) {
+        this.id = id;
+        this.world = world;
+        this.owner = owner;
+        this.ownerId = ownerId;
+        this.backend = backend;
+        this.queue = queue;
+        this.pipeline = pipeline;
+        this.journal = journal;
+        this.snapshot = snapshot;
+        this.chunkIndexes = chunkIndexes;
+        this.priority = priority;
+        this.pregenerate = pregenerate;
+
+        pipeline.onRemoved(chunkIndex -> {
+            removed.increment();
+            throughput.add(1);
+        });
+        if (pregenerate) pipeline.onBatchFlushed(this::recordRemoved);
+    }
+
+    // Ids name journal and snapshot files, so ids typed by players are checked before use
+    public static boolean isValidId(String id) {
+        return id != null && ID.matcher(id).matches();
+    }
+
+    private static String newId() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    // Writes the journal and creates the snapshot: call off the world thread.
+    // Neither is optional: a job that can't be resumed or undone removes nothing.
+    public static RegenJob create(World world, PlayerRef owner, long[] chunkIndexes, ChunkOrder order, PlayerPriority priority, boolean snapshot, boolean pregenerate) {
+        String id = newId();
+        RegenJournal.Options options = new RegenJournal.Options(owner != null ? owner.getUuid() : null, order, priority, pregenerate);
+
+        if (!RegenJournal.isEnabled()) throw new IllegalStateException("Journals are not set up");
+        if (snapshot && !ChunkSnapshot.isEnabled()) throw new IllegalStateException("Snapshots are not set up");
+
+        RegenJournal journal;
+        try {
+            journal = RegenJournal.create(id, world.getName(), options, chunkIndexes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ChunkSnapshot chunkSnapshot = null;
+        if (snapshot) {
+            try {
+                chunkSnapshot = ChunkSnapshot.create(id, world.getName());
+            } catch (IOException e) {
+                journal.delete(); // Or the job would be resumed on the next start
+                throw new UncheckedIOException(e);
+            }
+        }
+        return create(id, world, owner, options, chunkIndexes, journal, chunkSnapshot);
+    }
+
+    // Continues a job from its journal with the options it was started with.
+    // Fails if the journal or the snapshot can't be reopened; the journal stays
+    // for the next start.
+    public static RegenJob resume(World world, RegenJournal.PendingJob pending) {
+        RegenJournal journal;
+        try {
+            journal = RegenJournal.reopen(pending);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ChunkSnapshot snapshot = null;
+        if (ChunkSnapshot.exists(pending.jobId())) {
+            try {
+                snapshot = ChunkSnapshot.reopen(pending.jobId());
+            } catch (IOException e) {
+                try {
+                    journal.close();
+                } catch (IOException ignored) {
+                    // Already failing
+                }
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        RegenJob job = create(pending.jobId(), world, null, pending.options(), pending.remaining(), journal, snapshot);
+        if (job.pregenerate) job.recordRemoved(pending.removed()); // Removed before the restart
+        return job;
+    }
+
+    // A job on any backend, without a world, journal or owner: measures the pipeline in isolation
+    public static RegenJob detached(ChunkBackend backend, long[] chunkIndexes, ChunkOrder order, PlayerPriority priority) {
+        String id = newId();
+        ChunkQueue queue = ChunkQueue.of(chunkIndexes, order, backend, null);
+        return new RegenJob(id, null, null, null, backend, queue, new RemovalPipeline(backend).named(id), null, null, chunkIndexes, priority, false);
+    }
+
+    private static RegenJob create(String id, World world, PlayerRef owner, RegenJournal.Options options, long[] chunkIndexes, RegenJournal journal, ChunkSnapshot snapshot) {
+        WorldChunkBackend backend = new WorldChunkBackend(world);
+        ChunkInventory inventory = ChunkInventoryManager.scan(world, chunkIndexes);
+
+        RemovalPipeline pipeline = new RemovalPipeline(backend).named(id).snapshot(snapshot);
+
+        // Clients reload just the chunks of each finished batch
+        pipeline.onBatchFlushed(chunks -> world.execute(() -> ClientChunkRefresher.refresh(world, chunks)));
+
+        pipeline.onBatchFlushed(chunks -> {
+            try {
+                journal.recordBatch(chunks);
+            } catch (Exception e) {
+                RegenMetrics.get().error("journal", e);
+                LOGGER.atSevere().withCause(e).log("Could not write journal for regeneration job %s", id);
+            }
+        });
+
+        ChunkQueue queue = ChunkQueue.of(chunkIndexes, options.order(), backend, inventory);
+        return new RegenJob(id, world, owner, options.owner(), backend, queue, pipeline, journal, snapshot, chunkIndexes, options.priority(), options.pregenerate());
+    }
+
+    // Submit up to maxSubmits chunks while the budget allows; the first
+    // one always goes through so a job can't starve. World thread only.
+    public void process(TickBudget budget, int maxSubmits, PlayerProximity players) {
+        if (state == State.GENERATING) {
+            pregenerator.process(budget, maxSubmits, players);
+            return;
+        }
+
+        boolean deferNear = priority == PlayerPriority.NEAREST_LAST && !players.isEmpty();
+
+        if (priority == PlayerPriority.NEAREST_FIRST && !prioritized) {
+            queue.prioritize(players::isNear);
+            prioritized = true;
+        }
+        // Chunks missing from disk only matter while loaded, which is world thread state
+        if (queue.hasUnstored()) {
+            queue.checkUnstored(backend::isLoaded, MAX_UNSTORED_CHECKS_PER_TICK);
+        }
+        if (queue.needsDeferredPhase()) {
+            queue.startDeferredPhase(players::distance);
+        }
+
+        int count = 0;
+        int skipped = 0; // Deferring is cheap but not free, cap it per tick
+
+        // Unload as many chunks as fit in this tick's budget; the deletes stay in flight
+        while (queue.hasChunk() && pipeline.canAccept() && count < maxSubmits && (count == 0 || budget.hasTimeLeft())) {
+            long chunkIndex = queue.poll();
+
+            if (deferNear && !queue.isDeferredPhase() && players.isNear(chunkIndex)) {
+                queue.defer(chunkIndex);
+                if (++skipped >= MAX_DEFERRALS_PER_TICK) break;
+                continue;
+            }
+
+            submitted++;
+            count++;
+            currentRegion = ChunkQueue.regionKey(chunkIndex);
+
+            long start = System.nanoTime();
+            pipeline.submit(chunkIndex);
+            budget.record(System.nanoTime() - start);
+
+            // Flush per region file so the saver writes one file at a time
+            if (queue.hasChunk() && ChunkQueue.regionKey(queue.peek()) != ChunkQueue.regionKey(chunkIndex)) {
+                pipeline.endBatch();
+            }
+        }
+
+        // One flush for everything issued this tick
+        pipeline.endBatch();
+    }
+
+    // Everything was submitted; the deletes may still be in flight
+    public boolean isQueueEmpty() {
+        return queue.isEmpty();
+    }
+
+    // Stop submitting, wait for the deletes already in flight and forget the journal.
+    // Cancelled jobs are not resumed after a restart either. The snapshot stays.
+    // If removed chunks could not be flushed, the journal stays so the job runs
+    // again after a restart.
+    public CompletableFuture<Void> finish() {
+        if (state != State.CANCELLED) state = State.FINISHING;
+
+        return pipeline.drain().whenComplete((ignored, error) -> {
+            if (journal != null) {
+                if (error == null) journal.delete();
+                else LOGGER.atSevere().withCause(error).log("Keeping the journal of regeneration job %s for the next start", id);
+            }
+            if (snapshot != null) {
+                try {
+                    snapshot.close();
+                } catch (IOException e) {
+                    LOGGER.atWarning().withCause(e).log("Could not close snapshot of regeneration job %s", id);
+                }
+            }
+        });
+    }
+
+    // After finish: switch to generating what was removed, if the job asked for
+    // it and still has something to generate. World thread only.
+    public boolean startPregeneration(PlayerProximity players) {
+        if (!pregenerate || state != State.FINISHING) return false;
+
+        long[] chunks;
+        synchronized (this) {
+            chunks = Arrays.copyOf(removedChunks, removedCount);
+            removedChunks = null;
+        }
+        if (chunks.length == 0) return false;
+
+        pregenerator = new ChunkPregenerator(new WorldChunkBackend(world), chunks, players);
+        state = State.GENERATING;
+        return true;
+    }
+
+    public boolean isPregenerationDone() {
+        return pregenerator == null || pregenerator.isDone();
+    }
+
+    private synchronized void recordRemoved(long[] chunks) {
+        if (removedCount + chunks.length > removedChunks.length) {
+            removedChunks = Arrays.copyOf(removedChunks, Math.max(removedCount + chunks.length, removedChunks.length * 2));
+        }
+        System.arraycopy(chunks, 0, removedChunks, removedCount, chunks.length);
+        removedCount += chunks.length;
+    }
+
+    public void pause() {
+        if (state == State.RUNNING) state = State.PAUSED;
+    }
+
+    public void resume() {
+        if (state == State.PAUSED) state = State.RUNNING;
+    }
+
+    // While generating, the job stays GENERATING until the pregenerator has
+    // unloaded what it already requested
+    public void cancel() {
+        if (state == State.GENERATING) pregenerator.stop();
+        else if (state != State.FINISHING) state = State.CANCELLED;
+    }
+
+    public boolean isPregenerationStopped() {
+        ChunkPregenerator current = pregenerator;
+        return current != null && current.isStopped();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getSubmitted() {
+        return submitted;
+    }
+
+    // Chunks whose delete has completed
+    public long getRemoved() {
+        return removed.sum();
+    }
+
+    // Removal rate over the last few seconds
+    public double getChunksPerSecond() {
+        return throughput.perSecond();
+    }
+
+    // Region key (Regions.key) of the last submitted chunk, or NO_REGION
+    public long getCurrentRegion() {
+        return currentRegion;
+    }
+
+    // Progress of the pre-generation phase, 0 before it starts
+    public long getGenerated() {
+        ChunkPregenerator current = pregenerator;
+        return current == null ? 0 : current.getDone();
+    }
+
+    public int getToGenerate() {
+        ChunkPregenerator current = pregenerator;
+        return current == null ? 0 : current.size();
+    }
+
+    public boolean hasSnapshot() {
+        return snapshot != null;
+    }
+
+    public long[] getChunkIndexes() {
+        return chunkIndexes;
+    }
+
+    // Resumed jobs reach their owner if they are online
+    public void notifyOwner(String message) {
+        PlayerRef target = owner != null || ownerId == null ? owner : Universe.get().getPlayer(ownerId);
+        if (target != null) target.sendMessage(Message.raw(message));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+}
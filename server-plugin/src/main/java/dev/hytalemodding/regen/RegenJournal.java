@@ -0,0 +1,202 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import dev.hytalemodding.world.chunk.ChunkOrder;
+import dev.hytalemodding.world.chunk.ChunkSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+// Append-only record of a regeneration job: its options and planned chunks
+// first, then one record per flushed batch. A job whose journal still exists
+// when the plugin starts did not finish and is resumed from whatever is left,
+// with the same options.
+//
+// Layout: MAGIC, job id, world name, owner (flag, UUID), order, priority,
+// pregenerate flag, chunk count, chunk indexes, then [BATCH, count, chunk
+// indexes]* until the file ends. Strings are length-prefixed UTF-8; order and
+// priority are stored by name.
+public class RegenJournal implements Closeable {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final int MAGIC = 0x52434A32; // "RCJ2"
+    private static final byte BATCH = 1;
+    private static final String EXTENSION = ".journal";
+
+    private static Path directory; // null until the plugin has set it up
+
+    // How a job was started, so a resumed job runs the same way. owner is null if nobody started it.
+    public record Options(UUID owner, ChunkOrder order, PlayerPriority priority, boolean pregenerate) {}
+
+    public record PendingJob(String jobId, String worldName, Options options, long[] remaining, long[] removed, Path file, long validLength) {}
+
+    private final Path file;
+    private final FileChannel channel;
+
+    private RegenJournal(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    public static void setDirectory(Path directory) {
+        RegenJournal.directory = directory;
+    }
+
+    public static boolean isEnabled() {
+        return directory != null;
+    }
+
+    // Writes the header and planned chunks, synced to disk before any chunk is touched
+    public static RegenJournal create(String jobId, String worldName, Options options, long[] chunkIndexes) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(jobId + EXTENSION);
+
+        byte[] id = jobId.getBytes(StandardCharsets.UTF_8);
+        byte[] world = worldName.getBytes(StandardCharsets.UTF_8);
+        byte[] order = options.order().name().getBytes(StandardCharsets.UTF_8);
+        byte[] priority = options.priority().name().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer header = ByteBuffer.allocate(42 + id.length + world.length + order.length + priority.length + chunkIndexes.length * 8);
+        header.putInt(MAGIC);
+        header.putInt(id.length).put(id);
+        header.putInt(world.length).put(world);
+        header.put((byte) (options.owner() != null ? 1 : 0));
+        header.putLong(options.owner() != null ? options.owner().getMostSignificantBits() : 0);
+        header.putLong(options.owner() != null ? options.owner().getLeastSignificantBits() : 0);
+        header.putInt(order.length).put(order);
+        header.putInt(priority.length).put(priority);
+        header.put((byte) (options.pregenerate() ? 1 : 0));
+        header.putInt(chunkIndexes.length);
+        for (long chunkIndex : chunkIndexes) header.putLong(chunkIndex);
+        header.flip();
+
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        RegenJournal journal = new RegenJournal(file, channel);
+        journal.write(header);
+        return journal;
+    }
+
+    // Continue appending to the journal of a resumed job, after its last complete record
+    public static RegenJournal reopen(PendingJob job) throws IOException {
+        FileChannel channel = FileChannel.open(job.file(), StandardOpenOption.WRITE);
+        channel.truncate(job.validLength());
+        channel.position(job.validLength());
+        return new RegenJournal(job.file(), channel);
+    }
+
+    // Journals left over from jobs that never finished
+    public static List<PendingJob> loadPending() {
+        List<PendingJob> pending = new ArrayList<>();
+        if (directory == null || !Files.isDirectory(directory)) return pending;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                try {
+                    pending.add(read(file));
+                } catch (IOException e) {
+                    LOGGER.atWarning().withCause(e).log("Skipping unreadable regeneration journal %s", file);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Could not list regeneration journals");
+        }
+        return pending;
+    }
+
+    private static PendingJob read(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+
+        try {
+            if (in.getInt() != MAGIC) throw new IOException("Not a regeneration journal");
+            String jobId = readString(in);
+            String worldName = readString(in);
+
+            boolean hasOwner = in.get() != 0;
+            UUID owner = new UUID(in.getLong(), in.getLong());
+            Options options = new Options(hasOwner ? owner : null,
+                    ChunkOrder.valueOf(readString(in)), PlayerPriority.valueOf(readString(in)), in.get() != 0);
+
+            long[] planned = new long[in.getInt()];
+            for (int i = 0; i < planned.length; i++) planned[i] = in.getLong();
+
+            // Every complete batch record; a torn last record means that batch never finished syncing
+            ChunkSet done = new ChunkSet();
+            int validLength = in.position();
+            while (in.remaining() >= 5 && in.get() == BATCH) {
+                int count = in.getInt();
+                if (count < 0 || in.remaining() < count * 8L) break;
+
+                for (int i = 0; i < count; i++) done.add(in.getLong());
+                validLength = in.position();
+            }
+
+            long[] remaining = new long[planned.length];
+            long[] removed = new long[planned.length];
+            int remainingCount = 0;
+            int removedCount = 0;
+            for (long chunkIndex : planned) {
+                if (done.contains(chunkIndex)) removed[removedCount++] = chunkIndex;
+                else remaining[remainingCount++] = chunkIndex;
+            }
+            return new PendingJob(jobId, worldName, options,
+                    Arrays.copyOf(remaining, remainingCount), Arrays.copyOf(removed, removedCount), file, validLength);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated journal header", e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown job option in journal", e);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // One record and one fsync per batch
+    public synchronized void recordBatch(long[] chunkIndexes) throws IOException {
+        if (chunkIndexes.length == 0) return;
+
+        ByteBuffer buffer = ByteBuffer.allocate(5 + chunkIndexes.length * 8);
+        buffer.put(BATCH);
+        buffer.putInt(chunkIndexes.length);
+        for (long chunkIndex : chunkIndexes) buffer.putLong(chunkIndex);
+        buffer.flip();
+
+        write(buffer);
+    }
+
+    // The job finished: nothing left to resume
+    public synchronized void delete() {
+        try {
+            close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Could not delete regeneration journal %s", file);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) channel.close();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+        channel.force(false);
+    }
+}
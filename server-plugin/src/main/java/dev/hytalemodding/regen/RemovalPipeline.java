@@ -0,0 +1,247 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import dev.hytalemodding.metrics.RegenBatchEvent;
+import dev.hytalemodding.metrics.RegenMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Unloads chunks on the world thread but keeps the disk deletes in flight
+// instead of joining them one by one. Every batch gets a single flush once
+// all of its deletes have completed. With a snapshot, the batch is flushed
+// once its chunks are unloaded, so the copy read back includes what the unload
+// saved, and each delete waits for its chunk's copy to be written.
+// A batch whose flush fails is not reported as flushed: its chunks wait for
+// the final flush in drain.
+public class RemovalPipeline {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final RegenMetrics METRICS = RegenMetrics.get();
+
+    // Flushes and batch listeners (journal syncs) run here instead of on whichever
+    // saver thread completed a batch's last delete, which could deadlock a flush
+    private static final ExecutorService flusher = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "rechunk-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ChunkBackend backend;
+    private final int maxInFlight;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Set<CompletableFuture<Void>> pendingBatches = ConcurrentHashMap.newKeySet();
+
+    private String jobId = "";
+    private ChunkSnapshot snapshot; // null: delete without keeping a copy
+    private Batch currentBatch = new Batch();
+    private final Batch unflushed = new Batch(); // Removed by batches whose flush failed
+    private LongConsumer onRemoved = chunkIndex -> {};
+    private Consumer<long[]> onBatchFlushed = chunkIndexes -> {};
+
+    public RemovalPipeline(ChunkBackend backend) {
+        this(backend, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public RemovalPipeline(ChunkBackend backend, int maxInFlight) {
+        this.backend = backend;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    // Shown in the batch events
+    public RemovalPipeline named(String jobId) {
+        this.jobId = jobId;
+        return this;
+    }
+
+    public RemovalPipeline snapshot(ChunkSnapshot snapshot) {
+        this.snapshot = snapshot;
+        return this;
+    }
+
+    // Called with each chunk index once its delete has succeeded
+    public RemovalPipeline onRemoved(LongConsumer listener) {
+        this.onRemoved = this.onRemoved.andThen(listener);
+        return this;
+    }
+
+    // Called with the chunks a batch removed, after the batch has been flushed
+    public RemovalPipeline onBatchFlushed(Consumer<long[]> listener) {
+        this.onBatchFlushed = this.onBatchFlushed.andThen(listener);
+        return this;
+    }
+
+    public boolean canAccept() {
+        return inFlight.get() < maxInFlight;
+    }
+
+    // Unload and start deleting a chunk. World thread only.
+    public void submit(long chunkIndex) {
+        int chunkX = ChunkUtil.xOfChunkIndex(chunkIndex);
+        int chunkZ = ChunkUtil.zOfChunkIndex(chunkIndex);
+
+        long start = System.nanoTime();
+        backend.unload(chunkIndex);
+        long unloaded = System.nanoTime();
+        METRICS.unloaded(unloaded - start);
+
+        Batch batch = currentBatch;
+        CompletableFuture<Void> removal;
+        try {
+            removal = snapshot == null
+                    ? backend.remove(chunkX, chunkZ)
+                    : batch.saved.thenCompose(ignored -> snapshot.capture(backend, chunkIndex))
+                            .thenCompose(ignored -> backend.remove(chunkX, chunkZ));
+        } catch (Exception e) {
+            removal = CompletableFuture.failedFuture(e);
+        }
+
+        inFlight.incrementAndGet();
+        batch.futures.add(removal.whenComplete((ignored, error) -> {
+            inFlight.decrementAndGet();
+            if (error != null) {
+                METRICS.error("remove", error);
+                batch.failed();
+                LOGGER.atWarning().withCause(error).log("Error regenerating chunk %s,%s", chunkX, chunkZ);
+            } else {
+                METRICS.chunkRemoved(System.nanoTime() - unloaded);
+                onRemoved.accept(chunkIndex);
+                batch.removed(chunkIndex);
+            }
+        }));
+    }
+
+    // Close the current batch: flush once when all of its deletes are done
+    public CompletableFuture<Void> endBatch() {
+        if (currentBatch.futures.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        Batch batch = currentBatch;
+        currentBatch = new Batch();
+
+        // Write what the unloads saved before the snapshot reads it back
+        if (snapshot != null) {
+            flusher.execute(() -> {
+                try {
+                    backend.flush();
+                    batch.saved.complete(null);
+                } catch (Exception e) {
+                    batch.saved.completeExceptionally(e);
+                }
+            });
+        }
+
+        CompletableFuture<Void> done = CompletableFuture
+                .allOf(batch.futures.toArray(new CompletableFuture[0]))
+                .handleAsync((ignored, error) -> {
+                    long start = System.nanoTime();
+                    boolean flushed = flush();
+                    long[] removed = batch.removed();
+
+                    batch.event.jobId = jobId;
+                    batch.event.chunks = removed.length;
+                    batch.event.errors = batch.failed;
+                    batch.event.flushNanos = System.nanoTime() - start;
+                    batch.event.commit();
+
+                    // These deletes may not be on disk: don't journal them or show them to clients yet
+                    if (flushed) {
+                        batchFlushed(removed);
+                    } else {
+                        for (long chunkIndex : removed) unflushed.removed(chunkIndex);
+                    }
+                    return null;
+                }, flusher);
+
+        pendingBatches.add(done);
+        done.whenComplete((ignored, error) -> pendingBatches.remove(done));
+        return done;
+    }
+
+    // Completes when every batch submitted so far has been flushed. Chunks of
+    // batches whose flush failed get one more flush; if that fails as well, the
+    // future fails.
+    public CompletableFuture<Void> drain() {
+        endBatch();
+        return CompletableFuture.allOf(pendingBatches.toArray(new CompletableFuture[0]))
+                .thenRunAsync(() -> {
+                    long[] chunks = unflushed.removed();
+                    if (chunks.length == 0) return;
+
+                    if (!flush()) throw new IllegalStateException(chunks.length + " removed chunks could not be flushed");
+                    unflushed.clear();
+                    batchFlushed(chunks);
+                }, flusher);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void batchFlushed(long[] chunks) {
+        try {
+            onBatchFlushed.accept(chunks);
+        } catch (Exception e) {
+            METRICS.error("batch listener", e);
+            LOGGER.atSevere().withCause(e).log("Error recording finished batch of job %s", jobId);
+        }
+    }
+
+    // False if the saver failed to flush
+    private boolean flush() {
+        long start = System.nanoTime();
+        try {
+            backend.flush();
+        } catch (Exception e) {
+            METRICS.error("flush", e);
+            LOGGER.atSevere().withCause(e).log("Error flushing chunk saver");
+            return false;
+        } finally {
+            METRICS.flushed(System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    // Deletes issued in one batch, and the chunks they removed so far
+    private static class Batch {
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        private final CompletableFuture<Void> saved = new CompletableFuture<>(); // Snapshot only
+        private final RegenBatchEvent event = new RegenBatchEvent();
+        private long[] removed = new long[16];
+        private int removedCount;
+        private int failed;
+
+        Batch() {
+            event.begin();
+        }
+
+        synchronized void failed() {
+            failed++;
+        }
+
+        synchronized void removed(long chunkIndex) {
+            if (removedCount == removed.length) removed = Arrays.copyOf(removed, removedCount * 2);
+            removed[removedCount++] = chunkIndex;
+        }
+
+        synchronized long[] removed() {
+            return Arrays.copyOf(removed, removedCount);
+        }
+
+        synchronized void clear() {
+            removedCount = 0;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package dev.hytalemodding.regen;
+
+// Decides how much regeneration work fits into the current world tick.
+// The batch grows or shrinks from the measured cost of each chunk, and the
+// budget itself backs off whenever the world tick is already running long.
+public class TickBudget {
+
+    public static final long DEFAULT_BUDGET_NANOS = 2_000_000L; // 2 ms of wall-clock per tick
+
+    public static final int TICKS_PER_SECOND = 30;
+
+    private static final long TARGET_TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    private static final long OVERRUN_NANOS = TARGET_TICK_NANOS + TARGET_TICK_NANOS / 4;
+    private static final long MIN_BUDGET_NANOS = 250_000L;
+    private static final double SMOOTHING = 0.2; // Weight of the newest sample in the average
+
+    private final long maxBudgetNanos;
+    private long budgetNanos;
+    private double avgChunkNanos = 500_000; // First guess until we have measurements
+
+    private long tickStart;
+    private long lastTickStart;
+    private boolean started; // nanoTime can be 0 or negative, so it can't mark the first tick
+
+    public TickBudget() {
+        this(DEFAULT_BUDGET_NANOS);
+    }
+
+    public TickBudget(long maxBudgetNanos) {
+        this.maxBudgetNanos = Math.max(MIN_BUDGET_NANOS, maxBudgetNanos);
+        this.budgetNanos = this.maxBudgetNanos;
+    }
+
+    // Call once at the start of every scheduled batch
+    public void beginTick() {
+        long now = System.nanoTime();
+
+        if (started) {
+            long interval = now - lastTickStart;
+
+            if (interval > OVERRUN_NANOS) {
+                // The world is behind: halve our share until it catches up
+                budgetNanos = Math.max(MIN_BUDGET_NANOS, budgetNanos / 2);
+            } else {
+                // Recover slowly so we don't oscillate
+                budgetNanos = Math.min(maxBudgetNanos, budgetNanos + maxBudgetNanos / 8);
+            }
+        }
+
+        started = true;
+        lastTickStart = now;
+        tickStart = now;
+    }
+
+    // Feed the duration of a single unit of work
+    public void record(long nanos) {
+        avgChunkNanos += SMOOTHING * (nanos - avgChunkNanos);
+    }
+
+    // True if one more chunk is expected to finish inside the budget
+    public boolean hasTimeLeft() {
+        long elapsed = System.nanoTime() - tickStart;
+        return elapsed + avgChunkNanos <= budgetNanos;
+    }
+
+    // Expected number of chunks per tick with the current budget
+    public int batchSize() {
+        return (int) Math.max(1, budgetNanos / Math.max(1.0, avgChunkNanos));
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public double getAvgChunkNanos() {
+        return avgChunkNanos;
+    }
+}
@@ -0,0 +1,111 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+import com.hypixel.hytale.server.core.universe.world.storage.IChunkLoader;
+import com.hypixel.hytale.server.core.universe.world.storage.IChunkSaver;
+import dev.hytalemodding.offline.RegionHeader;
+import dev.hytalemodding.world.chunk.Regions;
+import org.bson.BsonDocument;
+import org.bson.ByteBuf;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+public class WorldChunkBackend implements ChunkBackend {
+
+    private final World world;
+
+    public WorldChunkBackend(World world) {
+        this.world = world;
+    }
+
+    @Override
+    public CompletableFuture<Void> load(long chunkIndex) {
+        return world.getChunkAsync(chunkIndex).thenApply(chunk -> null);
+    }
+
+    @Override
+    public void unload(long chunkIndex) {
+        ChunkStore chunkStore = world.getChunkStore();
+
+        Ref<ChunkStore> ref = chunkStore.getChunkReference(chunkIndex);
+        if (ref == null) return; // Not loaded
+
+        try {
+            chunkStore.remove(ref, RemoveReason.UNLOAD);
+        } catch (Exception ignored) {}
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(int chunkX, int chunkZ) {
+        IChunkSaver saver = world.getChunkStore().getSaver();
+        if (saver == null) return CompletableFuture.completedFuture(null);
+
+        return saver.removeHolder(chunkX, chunkZ);
+    }
+
+    // Chunks are kept as the BSON documents of their component holders, the same
+    // form the saver writes into region files
+    @Override
+    public CompletableFuture<byte[]> read(int chunkX, int chunkZ) {
+        IChunkLoader loader = world.getChunkStore().getLoader();
+        if (loader == null) return CompletableFuture.completedFuture(null);
+
+        return loader.loadHolder(chunkX, chunkZ).thenApply(holder -> {
+            if (holder == null) return null;
+
+            ByteBuf buffer = new RawBsonDocument(ChunkStore.REGISTRY.serialize(holder), new BsonDocumentCodec()).getByteBuffer();
+            byte[] data = new byte[buffer.remaining()];
+            buffer.get(data);
+            return data;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> write(int chunkX, int chunkZ, byte[] data) {
+        IChunkSaver saver = world.getChunkStore().getSaver();
+        if (saver == null) return CompletableFuture.completedFuture(null);
+
+        BsonDocument document = new RawBsonDocument(data).decode(new BsonDocumentCodec());
+        return saver.saveHolder(chunkX, chunkZ, ChunkStore.REGISTRY.deserialize(document));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        IChunkSaver saver = world.getChunkStore().getSaver();
+        if (saver != null) saver.flush();
+    }
+
+    @Override
+    public boolean isLoaded(long chunkIndex) {
+        return world.getChunkStore().getChunkReference(chunkIndex) != null;
+    }
+
+    @Override
+    public boolean hasRegion(int regionX, int regionZ) {
+        return Files.exists(getChunksPath().resolve(Regions.fileName(regionX, regionZ)));
+    }
+
+    // Read from the file's header, without touching chunk data
+    @Override
+    public long[] storedChunks(int regionX, int regionZ) throws IOException {
+        Path file = getChunksPath().resolve(Regions.fileName(regionX, regionZ));
+        if (!Files.exists(file)) return null;
+
+        try (RegionHeader header = RegionHeader.open(file, false)) {
+            return header.stored();
+        }
+    }
+
+    // Same layout the external tool reads: <world>/chunks/<x>.<z>.region.bin
+    public Path getChunksPath() {
+        return world.getSavePath().resolve("chunks");
+    }
+}
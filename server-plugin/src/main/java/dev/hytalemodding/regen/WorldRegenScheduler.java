@@ -0,0 +1,138 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+import dev.hytalemodding.metrics.RegenMetrics;
+import dev.hytalemodding.world.chunk.ChunkSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Runs every regeneration job of one world from a single tick loop. All jobs
+// share one TickBudget, so adding jobs doesn't add load, and each running job
+// gets an equal slice of it in rotating order. World thread only, except for
+// claim and release, which jobs being built off the world thread call too.
+public class WorldRegenScheduler {
+
+    private final World world;
+    private final TickBudget budget = new TickBudget();
+    private final List<RegenJob> jobs = new ArrayList<>();
+    private final ChunkSet claimed = new ChunkSet(); // Chunks owned by active jobs
+    private final Consumer<RegenJob> onJobDone;
+
+    private boolean running;
+    private int rotation;
+
+    private static final int PLAYER_REFRESH_TICKS = 30; // About once a second
+    private PlayerProximity players = PlayerProximity.NONE;
+    private int ticksSincePlayers = PLAYER_REFRESH_TICKS;
+
+    public WorldRegenScheduler(World world, Consumer<RegenJob> onJobDone) {
+        this.world = world;
+        this.onJobDone = onJobDone;
+    }
+
+    // Removes chunks other jobs already own and claims the rest
+    public synchronized long[] claim(long[] chunkIndexes) {
+        long[] free = new long[chunkIndexes.length];
+        int count = 0;
+        for (long chunkIndex : chunkIndexes) {
+            if (claimed.add(chunkIndex)) free[count++] = chunkIndex;
+        }
+        return count == free.length ? free : Arrays.copyOf(free, count);
+    }
+
+    public synchronized void release(long[] chunkIndexes) {
+        for (long chunkIndex : chunkIndexes) claimed.remove(chunkIndex);
+    }
+
+    public void add(RegenJob job) {
+        jobs.add(job);
+
+        if (!running) {
+            running = true;
+            world.execute(this::tick);
+        }
+    }
+
+    private void tick() {
+        if (jobs.isEmpty()) {
+            running = false;
+            return;
+        }
+
+        long start = System.nanoTime();
+        budget.beginTick();
+
+        List<RegenJob> active = new ArrayList<>();
+        for (RegenJob job : new ArrayList<>(jobs)) {
+            switch (job.getState()) {
+                case RUNNING -> {
+                    if (job.isQueueEmpty()) finish(job, "Regeneration Complete!");
+                    else active.add(job);
+                }
+                case GENERATING -> {
+                    if (job.isPregenerationDone()) {
+                        done(job, job.isPregenerationStopped() ? "Regeneration job " + job.getId() + " cancelled." : "Regeneration Complete!");
+                    }
+                    else active.add(job);
+                }
+                case CANCELLED -> finish(job, "Regeneration job " + job.getId() + " cancelled.");
+                default -> {}
+            }
+        }
+
+        if (!active.isEmpty()) {
+            // Players move; a slightly stale snapshot is fine
+            if (++ticksSincePlayers >= PLAYER_REFRESH_TICKS) {
+                players = PlayerProximity.capture(world, PlayerProximity.DEFAULT_VIEW_RADIUS);
+                ticksSincePlayers = 0;
+            }
+
+            // Equal share of what the budget is expected to fit, rotating who goes first
+            int share = Math.max(1, budget.batchSize() / active.size());
+            int first = rotation++ % active.size();
+
+            for (int i = 0; i < active.size(); i++) {
+                if (i > 0 && !budget.hasTimeLeft()) break;
+                active.get((first + i) % active.size()).process(budget, share, players);
+            }
+        }
+
+        RegenMetrics.get().tick(System.nanoTime() - start);
+
+        // Schedule the next batch for the next server tick
+        world.execute(this::tick);
+    }
+
+    private void finish(RegenJob job, String message) {
+        jobs.remove(job);
+
+        // Wait for the last deletes and flushes before reporting back
+        job.finish().whenComplete((ignored, error) -> world.execute(() -> {
+            if (error != null) job.notifyOwner("Some removed chunks could not be saved. The job runs again after a restart.");
+
+            // The chunks stay claimed while the job generates them again
+            if (job.startPregeneration(PlayerProximity.capture(world, PlayerProximity.DEFAULT_VIEW_RADIUS))) {
+                job.notifyOwner("Removal done, pre-generating " + job.getToGenerate() + " chunks...");
+                add(job);
+                return;
+            }
+            done(job, message);
+        }));
+    }
+
+    private void done(RegenJob job, String message) {
+        jobs.remove(job);
+        release(job.getChunkIndexes());
+
+        job.notifyOwner(message);
+        if (job.hasSnapshot()) job.notifyOwner("Removed chunks were kept. Undo with /rechunk restore " + job.getId());
+        onJobDone.accept(job);
+    }
+
+    public List<RegenJob> getJobs() {
+        return jobs;
+    }
+}
@@ -19,23 +19,61 @@ import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import dev.hytalemodding.managers.ChunkRegenManager;
 import dev.hytalemodding.managers.SelectionManager;
+import dev.hytalemodding.planning.ChunkArea;
+import dev.hytalemodding.planning.ProtectionPlanner;
+import dev.hytalemodding.planning.Selection;
+import dev.hytalemodding.regen.PlayerPriority;
+import dev.hytalemodding.world.chunk.ChunkOrder;
 import dev.hytalemodding.world.pos.BlockPos;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RCPage extends InteractiveCustomUIPage<RCPage.SaveCoordsEventData> {
 
+    private static final int PAGE_SIZE = 50; // Coordinate rows sent to the client at once
+    private static final int MAX_EDITS_PER_TICK = 32; // Saves and removes one page takes per tick
+    private static final int MAX_BLOCK_COORDINATE = 30_000_000;
+    private static final long START_COOLDOWN_MILLIS = 5_000;
+
+    // Last accepted start or dry run per player, kept only for the cooldown; outlives the page, which is rebuilt on every /rechunk
+    private static final Map<UUID, Long> lastStart = new ConcurrentHashMap<>();
+
+    // Rows the client currently shows, in order, so refreshes only send what changed
+    private final List<Selection> shownRows = new ArrayList<>();
+    private int page;
+
+    // Events are handled on the world thread; edits wait here until the tick's flush
+    private final Map<BlockPos, Integer> pendingAdds = new LinkedHashMap<>();
+    private final Set<Integer> pendingRemoves = new LinkedHashSet<>();
+    private int editsThisTick;
+    private boolean droppedThisTick;
+    private boolean flushScheduled;
+    private boolean closed;
+
+    // Chosen with /rechunk's arguments, for every job started from this page
+    private final ChunkOrder order;
+    private final PlayerPriority priority;
+
     public static class SaveCoordsEventData {
         public String xCoord;
         public String zCoord;
         public String buffer;
         public String action;
-        public String index;
+        public String key;
         public boolean protect;
         public boolean reset;
+        public boolean snapshot;
+        public boolean pregenerate;
 
         // Get all interactive UI elements from RCPage.ui
         public static final BuilderCodec<SaveCoordsEventData> CODEC =
@@ -47,9 +85,9 @@ public class RCPage extends InteractiveCustomUIPage<RCPage.SaveCoordsEventData>
                         )
                         .add()
                         .append(
-                                new KeyedCodec<>("Index", Codec.STRING),
-                                (SaveCoordsEventData obj, String val) -> obj.index = val,
-                                (SaveCoordsEventData obj) -> obj.index
+                                new KeyedCodec<>("Key", Codec.STRING),
+                                (SaveCoordsEventData obj, String val) -> obj.key = val,
+                                (SaveCoordsEventData obj) -> obj.key
                         )
                         .add()
                         .append(
@@ -82,11 +120,25 @@ public class RCPage extends InteractiveCustomUIPage<RCPage.SaveCoordsEventData>
                                 (SaveCoordsEventData obj) -> obj.reset
                         )
                         .add()
+                        .append(
+                                new KeyedCodec<>("@SnapshotCheckBox", Codec.BOOLEAN),
+                                (SaveCoordsEventData obj, Boolean val) -> obj.snapshot = val,
+                                (SaveCoordsEventData obj) -> obj.snapshot
+                        )
+                        .add()
+                        .append(
+                                new KeyedCodec<>("@PregenerateCheckBox", Codec.BOOLEAN),
+                                (SaveCoordsEventData obj, Boolean val) -> obj.pregenerate = val,
+                                (SaveCoordsEventData obj) -> obj.pregenerate
+                        )
+                        .add()
                         .build();
     }
 
-    public RCPage(@Nonnull PlayerRef playerRef) {
+    public RCPage(@Nonnull PlayerRef playerRef, @Nonnull ChunkOrder order, @Nonnull PlayerPriority priority) {
         super(playerRef, CustomPageLifetime.CanDismissOrCloseThroughInteraction, SaveCoordsEventData.CODEC);
+        this.order = order;
+        this.priority = priority;
     }
 
     private static void bindSave(UIEventBuilder evt, String selector) {
@@ -114,8 +166,8 @@ public class RCPage extends InteractiveCustomUIPage<RCPage.SaveCoordsEventData>
 
         UUIDComponent uuidComponent = store.getComponent(ref, UUIDComponent.getComponentType());
         if (uuidComponent != null) {
-            List<BlockPos> pos = SelectionManager.getSelections(uuidComponent.getUuid());
-            buildCoordinatesList(cmd, evt, pos, uuidComponent.getUuid());
+            List<Selection> pos = SelectionManager.getSelections(uuidComponent.getUuid());
+            syncCoordinatesList(cmd, evt, pos);
         }
 
         evt.addEventBinding(
@@ -135,38 +187,99 @@ public class RCPage extends InteractiveCustomUIPage<RCPage.SaveCoordsEventData>
         cmd.set("#ZInput.Value", "");
     }
 
-    // Build the UI field that displays the selected coordinates
-    public void buildCoordinatesList(UICommandBuilder commandBuilder, UIEventBuilder eventBuilder, List<BlockPos> pos, UUID playerId) {
+    // Build the UI field that displays the selected coordinates (current page only)
+    public void buildCoordinatesList(UICommandBuilder commandBuilder, UIEventBuilder eventBuilder, List<Selection> pos) {
         commandBuilder.clear("#CoordinatesList");
+        shownRows.clear();
 
-        if (pos == null || pos.isEmpty()) return;
+        List<Selection> rows = currentPage(pos);
+        for (Selection p : rows) {
+            appendRow(commandBuilder, eventBuilder, p);
+        }
 
-        for (int i = 0; i < pos.size(); i++) {
-            BlockPos p = pos.get(i);
-            String selector = "#CoordinatesList[" + i + "]";
+        setPageLabel(commandBuilder, pos);
+    }
 
-            commandBuilder.append("#CoordinatesList", "Pages/CoordEntry.ui");
+    // Bring the client's list in line with the selections, sending only removed and appended rows
+    private void syncCoordinatesList(UICommandBuilder commandBuilder, UIEventBuilder eventBuilder, List<Selection> pos) {
+        List<Selection> rows = currentPage(pos);
+        Set<Selection> wanted = new HashSet<>(rows);
+
+        int kept = 0;
+        int i = 0;
+        while (i < shownRows.size()) {
+            Selection shown = shownRows.get(i);
+
+            if (kept < rows.size() && shown.equals(rows.get(kept))) {
+                kept++;
+                i++;
+            } else if (!wanted.contains(shown)) {
+                // Gone: remove it on the client, rows below move up one place
+                commandBuilder.remove("#CoordinatesList[" + kept + "]");
+                shownRows.remove(i);
+            } else {
+                // Reordered or inserted in the middle: not worth diffing
+                buildCoordinatesList(commandBuilder, eventBuilder, pos);
+                return;
+            }
+        }
 
-            commandBuilder.set(selector + " #ChunkCoordinates.Text", "Chunk: " + p.chunkX() + ", " + p.chunkZ());
-            commandBuilder.set(selector + " #BlockCoordinates.Text", "Block: " + p.x() + ", " + p.z());
+        // Rows that moved up keep their binding: its event names the entry, not the row
+        for (int row = kept; row < rows.size(); row++) {
+            appendRow(commandBuilder, eventBuilder, rows.get(row));
+        }
 
-            boolean isOrigin = SelectionManager.isOrigin(playerId, p);
+        setPageLabel(commandBuilder, pos);
+    }
 
-            if (isOrigin) {
-                commandBuilder.set(selector + " #BackgroundChunkEntry.Background", "#FFAA00"); // Highlight Color
-            } else {
-                commandBuilder.set(selector + " #BackgroundChunkEntry.Background", "#00000000"); // Transparent
-            }
+    private List<Selection> currentPage(List<Selection> pos) {
+        if (pos == null || pos.isEmpty()) {
+            page = 0;
+            return List.of();
+        }
+
+        int lastPage = (pos.size() - 1) / PAGE_SIZE;
+        page = Math.max(0, Math.min(page, lastPage));
+        return pos.subList(page * PAGE_SIZE, Math.min(pos.size(), (page + 1) * PAGE_SIZE));
+    }
+
+    private void appendRow(UICommandBuilder commandBuilder, UIEventBuilder eventBuilder, Selection p) {
+        int row = shownRows.size();
+        String selector = "#CoordinatesList[" + row + "]";
+
+        commandBuilder.append("#CoordinatesList", "Pages/CoordEntry.ui");
+
+        BlockPos origin = p.origin();
+        commandBuilder.set(selector + " #ChunkCoordinates.Text", "Chunk: " + origin.chunkX() + ", " + origin.chunkZ() + " (radius " + p.radius() + ")");
+        commandBuilder.set(selector + " #BlockCoordinates.Text", "Block: " + origin.x() + ", " + origin.z());
 
-            eventBuilder.addEventBinding(
-                    CustomUIEventBindingType.Activating,
-                    selector + " #RemoveButton",
-                    new EventData()
-                            .append("Action", "Remove")
-                            .append("Index", String.valueOf(i)),
-                    false
-            );
+        // Bases with a buffer stand out from single chunks
+        if (p.radius() > 0) {
+            commandBuilder.set(selector + " #BackgroundChunkEntry.Background", "#FFAA00"); // Highlight Color
+        } else {
+            commandBuilder.set(selector + " #BackgroundChunkEntry.Background", "#00000000"); // Transparent
         }
+
+        bindRemove(eventBuilder, row, p);
+        shownRows.add(p);
+    }
+
+    // The entry travels with the event, so a click can't hit the wrong row after the list changed
+    private static void bindRemove(UIEventBuilder eventBuilder, int row, Selection p) {
+        eventBuilder.addEventBinding(
+                CustomUIEventBindingType.Activating,
+                "#CoordinatesList[" + row + "] #RemoveButton",
+                new EventData()
+                        .append("Action", "Remove")
+                        .append("Key", String.valueOf(p.id())),
+                false
+        );
+    }
+
+    private void setPageLabel(UICommandBuilder commandBuilder, List<Selection> pos) {
+        int total = pos == null ? 0 : pos.size();
+        int pages = Math.max(1, (total + PAGE_SIZE - 1) / PAGE_SIZE);
+        commandBuilder.set("#PageLabel.Text", "Page " + (page + 1) + "/" + pages + " (" + total + ")");
     }
 
     @Override
@@ -178,13 +291,13 @@ public class RCPage extends InteractiveCustomUIPage<RCPage.SaveCoordsEventData>
     ) {
         cmd.append("Pages/RCPage.ui");
 
-        List<BlockPos> pos = null;
+        List<Selection> pos = null;
         UUIDComponent uuidComponent = store.getComponent(ref, UUIDComponent.getComponentType());
         if (uuidComponent != null) {
             pos = SelectionManager.getSelections(uuidComponent.getUuid());
         }
 
-        if (pos != null) buildCoordinatesList(cmd, evt, pos, uuidComponent.getUuid());
+        if (pos != null) buildCoordinatesList(cmd, evt, pos);
 
         evt.addEventBinding(
                 CustomUIEventBindingType.Activating,
@@ -193,6 +306,17 @@ public class RCPage extends InteractiveCustomUIPage<RCPage.SaveCoordsEventData>
                         .append("Action", "StartRegen")
                         .append("@ProtectCheckBox", "#ProtectCheckBox #CheckBox.Value")
                         .append("@ResetCheckBox", "#ResetCheckBox #CheckBox.Value")
+                        .append("@SnapshotCheckBox", "#SnapshotCheckBox #CheckBox.Value")
+                        .append("@PregenerateCheckBox", "#PregenerateCheckBox #CheckBox.Value")
+        );
+
+        evt.addEventBinding(
+                CustomUIEventBindingType.Activating,
+                "#DryRunButton",
+                new EventData()
+                        .append("Action", "DryRun")
+                        .append("@ProtectCheckBox", "#ProtectCheckBox #CheckBox.Value")
+                        .append("@ResetCheckBox", "#ResetCheckBox #CheckBox.Value")
         );
 
         evt.addEventBinding(
@@ -211,6 +335,18 @@ public class RCPage extends InteractiveCustomUIPage<RCPage.SaveCoordsEventData>
                 new EventData().append("Action", "Cancel")
         );
 
+        evt.addEventBinding(
+                CustomUIEventBindingType.Activating,
+                "#PrevPageButton",
+                new EventData().append("Action", "PrevPage")
+        );
+
+        evt.addEventBinding(
+                CustomUIEventBindingType.Activating,
+                "#NextPageButton",
+                new EventData().append("Action", "NextPage")
+        );
+
         evt.addEventBinding(
                 CustomUIEventBindingType.Activating,
                 "#CloseButton",
@@ -224,14 +360,19 @@ public class RCPage extends InteractiveCustomUIPage<RCPage.SaveCoordsEventData>
             @Nonnull Store<EntityStore> store,
             @Nonnull SaveCoordsEventData data
     ) {
+        if (closed || data.action == null) return;
 
         UUIDComponent uuidComponent = store.getComponent(ref, UUIDComponent.getComponentType());
         if (uuidComponent == null) return;
 
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType()); // Get the player reference
+        Player playerEntity = store.getComponent(ref, Player.getComponentType());
 
         switch (data.action) {
             case "StartRegen":
+            case "DryRun":
+                boolean dryRun = data.action.equals("DryRun");
+
                 // Validation: Check Checkbox States
                 if (data.protect && data.reset) {
                     playerRef.sendMessage(Message.raw("Error: You cannot select both Protect and Reset modes."));
@@ -242,109 +383,201 @@ public class RCPage extends InteractiveCustomUIPage<RCPage.SaveCoordsEventData>
                     return;
                 }
 
-                // Get the current Selection List
-                List<BlockPos> selectedChunks = SelectionManager.getSelections(uuidComponent.getUuid());
-                if (selectedChunks == null) selectedChunks = new ArrayList<>();
-
-                // Determine which chunks to regenerate
-                List<BlockPos> chunksToRegen = new ArrayList<>();
-
-                if (data.reset) {
-                    // RESET MODE: Regenerate ONLY the selected chunks
-                    chunksToRegen.addAll(selectedChunks);
+                // Planning is the expensive part; one plan per player every few seconds
+                long now = System.currentTimeMillis();
+                Long last = lastStart.get(uuidComponent.getUuid());
+                if (last != null && now - last < START_COOLDOWN_MILLIS) {
+                    playerRef.sendMessage(Message.raw("Please wait a few seconds before starting again."));
+                    return;
                 }
-                else if (data.protect) {
-                    // PROTECT MODE: Regenerate area around player EXCEPT selected chunks
-                    // We define a "Work Area" (e.g., 5 chunks radius around player)
-                    int workRadius = 32;
-
-                    // Simple implementation: Regenerate a 10x10 area around the first selected chunk, excluding the list
-                    if (!selectedChunks.isEmpty()) {
-                        BlockPos center = selectedChunks.get(0);
-                        for (int x = -workRadius; x <= workRadius; x++) {
-                            for (int z = -workRadius; z <= workRadius; z++) {
-                                int cx = center.chunkX() + x;
-                                int cz = center.chunkZ() + z;
-
-                                // Check if this chunk is in the "Protected" list
-                                boolean isProtected = false;
-                                for (BlockPos safe : selectedChunks) {
-                                    if (safe.chunkX() == cx && safe.chunkZ() == cz) {
-                                        isProtected = true;
-                                        break;
-                                    }
-                                }
-
-                                if (!isProtected) {
-                                    // It's not protected, so we regenerate it
-                                     chunksToRegen.add(new BlockPos(cx * 32, cz * 32));
-                                }
-                            }
-                        }
-                    } else {
-                        playerRef.sendMessage(Message.raw("Protect Mode requires at least one chunk selected to define the center."));
-                        return;
-                    }
+
+                if (playerEntity == null) {
+                    playerRef.sendMessage(Message.raw("Error: Could not find player entity."));
+                    return;
                 }
+                World world = playerEntity.getWorld();
 
-                // Send to Manager
-                if (!chunksToRegen.isEmpty()) {
-                    Player playerEntity = store.getComponent(ref, Player.getComponentType());
+                // Clicks from this tick count too
+                applyEdits(uuidComponent.getUuid(), playerRef);
 
-                    if (playerEntity != null) {
-                        World world = playerEntity.getWorld();
+                // Get the current selection shapes
+                List<Selection> selections = SelectionManager.getSelections(uuidComponent.getUuid());
+                ChunkArea selectedArea = SelectionManager.getArea(uuidComponent.getUuid());
 
-                        ChunkRegenManager.startRegeneration(world, playerRef, chunksToRegen);
+                if (data.protect && selections.isEmpty()) {
+                    playerRef.sendMessage(Message.raw("Protect Mode requires at least one chunk selected to define the center."));
+                    return;
+                }
 
-                        playerRef.sendMessage(Message.raw("Starting regeneration of " + chunksToRegen.size() + " chunks..."));
-                        this.close();
+                // Only starts that pass validation count; older stamps no longer matter
+                lastStart.values().removeIf(time -> now - time >= START_COOLDOWN_MILLIS);
+                lastStart.put(uuidComponent.getUuid(), now);
+
+                if (dryRun) {
+                    // Same plan, streamed row by row into counts instead of a chunk list
+                    if (data.reset) {
+                        ChunkRegenManager.dryRun(world, playerRef, selectedArea::forEachRow);
                     } else {
-                        playerRef.sendMessage(Message.raw("Error: Could not find player entity."));
+                        ChunkRegenManager.dryRun(world, playerRef,
+                                ProtectionPlanner.protecting(selectedArea, ProtectionPlanner.DEFAULT_WORK_RADIUS)::forEachRow);
                     }
-                } else {
-                    playerRef.sendMessage(Message.raw("No chunks found to regenerate."));
+                    closePage();
+                    return;
                 }
-                break;
-            case "Save":
-                String x = (data.xCoord != null && !data.xCoord.isEmpty()) ? data.xCoord : "0";
-                String z = (data.zCoord != null && !data.zCoord.isEmpty()) ? data.zCoord : "0";
-                String buff = (data.buffer != null && !data.buffer.isEmpty()) ? data.buffer : "0";
 
-                int blockX = Integer.parseInt(x);
-                int blockZ = Integer.parseInt(z);
-                int radius = Integer.parseInt(buff);
+                // Determine which chunks to regenerate
+                CompletableFuture<long[]> plan;
 
-                int chunkSize = 32;
+                if (data.reset) {
+                    // RESET MODE: Regenerate ONLY the selected chunks
+                    plan = CompletableFuture.completedFuture(selectedArea.toArray());
+                }
+                else {
+                    // PROTECT MODE: Regenerate the surroundings of every base EXCEPT the selected chunks
+                    // Each base keeps its whole buffer; the work area reaches past it
+                    ProtectionPlanner planner = ProtectionPlanner.protecting(selectedArea, ProtectionPlanner.DEFAULT_WORK_RADIUS);
 
-                for (int xOffset = -radius; xOffset <= radius; xOffset++) {
-                    for (int zOffset = -radius; zOffset <= radius; zOffset++) {
-                        int targetBlockX = blockX + (xOffset * chunkSize);
-                        int targetBlockZ = blockZ + (zOffset * chunkSize);
+                    // Plan off the world thread, large work areas can take a while
+                    plan = CompletableFuture.supplyAsync(planner::plan);
+                }
 
-                        boolean isOrigin = (xOffset == 0 && zOffset == 0);
+                // Send to Manager once the plan is ready
+                plan.whenComplete((chunksToRegen, error) -> world.execute(() -> {
+                            if (error != null) {
+                                lastStart.remove(uuidComponent.getUuid(), now);
+                                playerRef.sendMessage(Message.raw("Error: Could not plan regeneration: " + error.getMessage()));
+                                return;
+                            }
+                            if (chunksToRegen.length == 0) {
+                                lastStart.remove(uuidComponent.getUuid(), now);
+                                playerRef.sendMessage(Message.raw("No chunks found to regenerate."));
+                                return;
+                            }
 
-                        SelectionManager.addSelection(uuidComponent.getUuid(), targetBlockX, targetBlockZ, isOrigin);
-                    }
+                            // Reports the job itself, with the chunk count after filtering
+                            ChunkRegenManager.startRegeneration(world, playerRef, chunksToRegen,
+                                    order, priority, data.snapshot, data.pregenerate);
+                        }));
+
+                closePage();
+                return;
+            case "Save":
+                Integer blockX = parseNumber(data.xCoord);
+                Integer blockZ = parseNumber(data.zCoord);
+                Integer radius = parseNumber(data.buffer);
+
+                if (blockX == null || blockZ == null || radius == null) {
+                    playerRef.sendMessage(Message.raw("Error: X, Z and Buffer must be whole numbers."));
+                    return;
                 }
+                if (Math.abs(blockX) > MAX_BLOCK_COORDINATE || Math.abs(blockZ) > MAX_BLOCK_COORDINATE) {
+                    playerRef.sendMessage(Message.raw("Error: Coordinates must be between -" + MAX_BLOCK_COORDINATE + " and " + MAX_BLOCK_COORDINATE + "."));
+                    return;
+                }
+                if (radius < 0 || radius > SelectionManager.MAX_RADIUS) {
+                    playerRef.sendMessage(Message.raw("Error: Buffer must be between 0 and " + SelectionManager.MAX_RADIUS + " chunks."));
+                    return;
+                }
+                if (!acceptEdit(playerRef)) return;
+
+                // One shape per base: the buffer's chunks are never expanded here
+                pendingAdds.merge(new BlockPos(blockX, blockZ), radius, Math::max);
                 break;
 
             case "Remove":
-                if (data.index != null) {
-                    int indexToRemove = Integer.parseInt(data.index);
-                    SelectionManager.removeSelection(uuidComponent.getUuid(), indexToRemove);
-                }
+                if (data.key == null) return;
+                Integer id = parseNumber(data.key);
+                if (id == null || !acceptEdit(playerRef)) return;
+
+                pendingRemoves.add(id);
+                break;
+
+            case "PrevPage":
+                page--;
+                break;
+
+            case "NextPage":
+                page++;
                 break;
 
             case "Cancel":
+                pendingAdds.clear();
+                pendingRemoves.clear();
                 SelectionManager.clearSelections(uuidComponent.getUuid());
-                this.close();
-                break;
+                closePage();
+                return;
 
             case "Close":
-                this.close();
-                break;
+                closePage();
+                return;
+
+            default:
+                return;
         }
 
+        // Whatever else arrives this tick joins the same update
+        if (playerEntity == null) {
+            flush(ref, store);
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            playerEntity.getWorld().execute(() -> flush(ref, store));
+        }
+    }
+
+    // One state change and one page update for all the events of a tick
+    private void flush(Ref<EntityStore> ref, Store<EntityStore> store) {
+        flushScheduled = false;
+        if (closed || !ref.isValid()) return;
+
+        UUIDComponent uuidComponent = store.getComponent(ref, UUIDComponent.getComponentType());
+        if (uuidComponent == null) return;
+
+        applyEdits(uuidComponent.getUuid(), store.getComponent(ref, PlayerRef.getComponentType()));
         refreshPage(ref, store);
     }
+
+    private void applyEdits(UUID playerId, PlayerRef playerRef) {
+        editsThisTick = 0;
+        droppedThisTick = false;
+        if (pendingAdds.isEmpty() && pendingRemoves.isEmpty()) return;
+
+        int rejected = SelectionManager.applyEdits(playerId, pendingAdds, pendingRemoves);
+        pendingAdds.clear();
+        pendingRemoves.clear();
+
+        if (rejected > 0 && playerRef != null) {
+            playerRef.sendMessage(Message.raw("Error: " + rejected + " coordinates were not saved. The limit is "
+                    + SelectionManager.MAX_SELECTIONS + " entries and " + SelectionManager.MAX_SELECTED_CHUNKS + " selected chunks."));
+        }
+    }
+
+    // Caps how many clicks one tick can queue; the rest are dropped with a single message
+    private boolean acceptEdit(PlayerRef playerRef) {
+        if (editsThisTick < MAX_EDITS_PER_TICK) {
+            editsThisTick++;
+            return true;
+        }
+        if (!droppedThisTick) {
+            droppedThisTick = true;
+            playerRef.sendMessage(Message.raw("Too many clicks at once, some were ignored."));
+        }
+        return false;
+    }
+
+    private void closePage() {
+        closed = true;
+        pendingAdds.clear();
+        pendingRemoves.clear();
+        this.close();
+    }
+
+    // Empty fields count as 0; anything that isn't a whole number in int range gives null
+    private static Integer parseNumber(String value) {
+        if (value == null || value.isBlank()) return 0;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
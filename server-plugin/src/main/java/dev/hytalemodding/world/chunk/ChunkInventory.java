@@ -0,0 +1,119 @@
+package dev.hytalemodding.world.chunk;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+// Which chunks of a world exist on disk: one 1024-bit map per region file.
+// Safe to share between threads.
+public class ChunkInventory {
+
+    private static final int WORDS = Regions.CHUNKS_PER_REGION / 64;
+
+    private final Map<Long, AtomicLongArray> regions = new ConcurrentHashMap<>();
+
+    public void add(long chunkIndex) {
+        int chunkX = ChunkUtil.xOfChunkIndex(chunkIndex);
+        int chunkZ = ChunkUtil.zOfChunkIndex(chunkIndex);
+        int local = Regions.localIndex(chunkX, chunkZ);
+
+        AtomicLongArray bits = regions.computeIfAbsent(regionKey(chunkX, chunkZ), key -> new AtomicLongArray(WORDS));
+        bits.getAndUpdate(local >> 6, word -> word | (1L << local));
+    }
+
+    // bits as stored in a region file header: bit i is the chunk at Regions.localIndex i
+    public void addRegion(int regionX, int regionZ, long[] bits) {
+        AtomicLongArray region = regions.computeIfAbsent(Regions.key(regionX, regionZ), key -> new AtomicLongArray(WORDS));
+        for (int i = 0; i < WORDS; i++) {
+            long word = bits[i];
+            region.getAndUpdate(i, current -> current | word);
+        }
+    }
+
+    public void remove(long chunkIndex) {
+        int chunkX = ChunkUtil.xOfChunkIndex(chunkIndex);
+        int chunkZ = ChunkUtil.zOfChunkIndex(chunkIndex);
+        int local = Regions.localIndex(chunkX, chunkZ);
+
+        AtomicLongArray bits = regions.get(regionKey(chunkX, chunkZ));
+        if (bits != null) bits.getAndUpdate(local >> 6, word -> word & ~(1L << local));
+    }
+
+    public boolean contains(long chunkIndex) {
+        return contains(ChunkUtil.xOfChunkIndex(chunkIndex), ChunkUtil.zOfChunkIndex(chunkIndex));
+    }
+
+    public boolean contains(int chunkX, int chunkZ) {
+        AtomicLongArray bits = regions.get(regionKey(chunkX, chunkZ));
+        if (bits == null) return false;
+
+        int local = Regions.localIndex(chunkX, chunkZ);
+        return (bits.get(local >> 6) & (1L << local)) != 0;
+    }
+
+    // Number of chunks stored in a region file
+    public int count(int regionX, int regionZ) {
+        AtomicLongArray bits = regions.get(Regions.key(regionX, regionZ));
+        if (bits == null) return 0;
+
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) count += Long.bitCount(bits.get(i));
+        return count;
+    }
+
+    // Stored chunks of row chunkZ from fromX to toX; both ends must lie in the same region.
+    // A region row is 32 bits of one word, so this is a single popcount.
+    public int countRow(int chunkZ, int fromX, int toX) {
+        AtomicLongArray bits = regions.get(regionKey(fromX, chunkZ));
+        if (bits == null) return 0;
+
+        int first = Regions.localIndex(fromX, chunkZ);
+        long mask = (1L << (toX - fromX + 1)) - 1;
+        return Long.bitCount((bits.get(first >> 6) >>> (first & 63)) & mask);
+    }
+
+    public long size() {
+        long size = 0;
+        for (long regionKey : regions.keySet()) {
+            size += count(Regions.xOfKey(regionKey), Regions.zOfKey(regionKey));
+        }
+        return size;
+    }
+
+    // Calls the action with the key (Regions.key) of every region that has chunks
+    public void forEachRegion(LongConsumer action) {
+        for (Map.Entry<Long, AtomicLongArray> entry : regions.entrySet()) {
+            AtomicLongArray bits = entry.getValue();
+            for (int i = 0; i < WORDS; i++) {
+                if (bits.get(i) != 0) {
+                    action.accept(entry.getKey());
+                    break;
+                }
+            }
+        }
+    }
+
+    public void forEach(LongConsumer action) {
+        for (Map.Entry<Long, AtomicLongArray> entry : regions.entrySet()) {
+            int baseX = Regions.xOfKey(entry.getKey()) << Regions.SHIFT;
+            int baseZ = Regions.zOfKey(entry.getKey()) << Regions.SHIFT;
+            AtomicLongArray bits = entry.getValue();
+
+            for (int i = 0; i < WORDS; i++) {
+                long word = bits.get(i);
+                while (word != 0) {
+                    int local = (i << 6) | Long.numberOfTrailingZeros(word);
+                    action.accept(ChunkUtil.indexChunk(baseX + Regions.localX(local), baseZ + Regions.localZ(local)));
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    private static long regionKey(int chunkX, int chunkZ) {
+        return Regions.key(Regions.regionOf(chunkX), Regions.regionOf(chunkZ));
+    }
+}
@@ -0,0 +1,88 @@
+package dev.hytalemodding.world.chunk;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.util.Arrays;
+
+// Orders chunk indexes so that chunks of the same region file are processed
+// together, in the order they are stored inside the file.
+public enum ChunkOrder {
+
+    // Regions row by row (Z, then X)
+    REGION,
+
+    // Regions along a Z-order curve, so neighbouring regions stay close together
+    // even when a job spans a large area
+    MORTON;
+
+    // Region coordinates fit in 22 bits: chunk coordinates come from int block coordinates >> 5
+    private static final int REGION_BITS = 22;
+    private static final int REGION_OFFSET = 1 << (REGION_BITS - 1);
+    private static final long REGION_MASK = (1L << REGION_BITS) - 1;
+    private static final int LOCAL_BITS = 2 * Regions.SHIFT;
+
+    // Sorts the chunk indexes in place and returns the same array
+    public long[] sort(long[] chunkIndexes) {
+        for (int i = 0; i < chunkIndexes.length; i++) {
+            chunkIndexes[i] = encode(chunkIndexes[i]);
+        }
+
+        Arrays.sort(chunkIndexes);
+
+        for (int i = 0; i < chunkIndexes.length; i++) {
+            chunkIndexes[i] = decode(chunkIndexes[i]);
+        }
+        return chunkIndexes;
+    }
+
+    private long encode(long chunkIndex) {
+        int chunkX = ChunkUtil.xOfChunkIndex(chunkIndex);
+        int chunkZ = ChunkUtil.zOfChunkIndex(chunkIndex);
+
+        long rx = (Regions.regionOf(chunkX) + REGION_OFFSET) & REGION_MASK;
+        long rz = (Regions.regionOf(chunkZ) + REGION_OFFSET) & REGION_MASK;
+
+        long region = this == MORTON ? interleave(rx, rz) : (rz << REGION_BITS) | rx;
+        return (region << LOCAL_BITS) | Regions.localIndex(chunkX, chunkZ);
+    }
+
+    private long decode(long key) {
+        int local = (int) (key & ((1 << LOCAL_BITS) - 1));
+        long region = key >>> LOCAL_BITS;
+
+        long rx;
+        long rz;
+        if (this == MORTON) {
+            rx = compact(region);
+            rz = compact(region >>> 1);
+        } else {
+            rx = region & REGION_MASK;
+            rz = region >>> REGION_BITS;
+        }
+
+        int chunkX = (((int) rx - REGION_OFFSET) << Regions.SHIFT) | Regions.localX(local);
+        int chunkZ = (((int) rz - REGION_OFFSET) << Regions.SHIFT) | Regions.localZ(local);
+        return ChunkUtil.indexChunk(chunkX, chunkZ);
+    }
+
+    // X on even bits, Z on odd bits
+    private static long interleave(long x, long z) {
+        return spread(x) | (spread(z) << 1);
+    }
+
+    private static long spread(long v) {
+        long result = 0;
+        for (int bit = 0; bit < REGION_BITS; bit++) {
+            result |= ((v >>> bit) & 1L) << (2 * bit);
+        }
+        return result;
+    }
+
+    private static long compact(long v) {
+        long result = 0;
+        for (int bit = 0; bit < REGION_BITS; bit++) {
+            result |= ((v >>> (2 * bit)) & 1L) << bit;
+        }
+        return result;
+    }
+}
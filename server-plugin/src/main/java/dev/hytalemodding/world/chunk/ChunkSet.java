@@ -0,0 +1,170 @@
+package dev.hytalemodding.world.chunk;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Set of chunk indexes (ChunkUtil.indexChunk) stored in a primitive
+// open-addressed table, so membership checks don't box or allocate.
+public class ChunkSet {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    // 0 marks an empty slot; the chunk that packs to 0 is tracked separately
+    private long[] table;
+    private boolean containsZero;
+    private int size;
+    private int resizeAt;
+
+    public ChunkSet() {
+        this(16);
+    }
+
+    public ChunkSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public static ChunkSet of(long[] chunkIndexes) {
+        ChunkSet set = new ChunkSet(chunkIndexes.length);
+        for (long chunkIndex : chunkIndexes) set.add(chunkIndex);
+        return set;
+    }
+
+    public boolean add(int chunkX, int chunkZ) {
+        return add(ChunkUtil.indexChunk(chunkX, chunkZ));
+    }
+
+    public boolean add(long chunkIndex) {
+        if (chunkIndex == 0) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int mask = table.length - 1;
+        int slot = mix(chunkIndex) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == chunkIndex) return false;
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = chunkIndex;
+        if (++size >= resizeAt) rehash(table.length * 2);
+        return true;
+    }
+
+    public boolean contains(int chunkX, int chunkZ) {
+        return contains(ChunkUtil.indexChunk(chunkX, chunkZ));
+    }
+
+    public boolean contains(long chunkIndex) {
+        if (chunkIndex == 0) return containsZero;
+
+        int mask = table.length - 1;
+        int slot = mix(chunkIndex) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == chunkIndex) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean remove(long chunkIndex) {
+        if (chunkIndex == 0) {
+            if (!containsZero) return false;
+            containsZero = false;
+            size--;
+            return true;
+        }
+
+        int mask = table.length - 1;
+        int slot = mix(chunkIndex) & mask;
+        while (table[slot] != chunkIndex) {
+            if (table[slot] == 0) return false;
+            slot = (slot + 1) & mask;
+        }
+
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (table[next] != 0) {
+            int home = mix(table[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                table[gap] = table[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[gap] = 0;
+        size--;
+        return true;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsZero) action.accept(0L);
+        for (long chunkIndex : table) {
+            if (chunkIndex != 0) action.accept(chunkIndex);
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        if (containsZero) result[i++] = 0L;
+        for (long chunkIndex : table) {
+            if (chunkIndex != 0) result[i++] = chunkIndex;
+        }
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        containsZero = false;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] old = table;
+        allocate(newCapacity);
+
+        int mask = table.length - 1;
+        for (long chunkIndex : old) {
+            if (chunkIndex == 0) continue;
+
+            int slot = mix(chunkIndex) & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = chunkIndex;
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR) + 1;
+        return (int) Math.max(16, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    // Murmur3 finalizer: packed chunk coordinates cluster badly without it
+    private static int mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
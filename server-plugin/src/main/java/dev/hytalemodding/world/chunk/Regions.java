@@ -0,0 +1,46 @@
+package dev.hytalemodding.world.chunk;
+
+// Chunk <-> region file math. A *.region.bin file holds 32x32 chunks.
+public final class Regions {
+
+    public static final int SHIFT = 5;
+    public static final int SIZE = 1 << SHIFT;
+    public static final int CHUNKS_PER_REGION = SIZE * SIZE;
+
+    private static final int MASK = SIZE - 1;
+
+    private Regions() {}
+
+    public static int regionOf(int chunkCoord) {
+        return chunkCoord >> SHIFT;
+    }
+
+    // Position of a chunk inside its region file (row-major, X first)
+    public static int localIndex(int chunkX, int chunkZ) {
+        return (chunkX & MASK) | ((chunkZ & MASK) << SHIFT);
+    }
+
+    public static int localX(int localIndex) {
+        return localIndex & MASK;
+    }
+
+    public static int localZ(int localIndex) {
+        return localIndex >> SHIFT;
+    }
+
+    public static long key(int regionX, int regionZ) {
+        return ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+    }
+
+    public static int xOfKey(long regionKey) {
+        return (int) (regionKey >> 32);
+    }
+
+    public static int zOfKey(long regionKey) {
+        return (int) regionKey;
+    }
+
+    public static String fileName(int regionX, int regionZ) {
+        return regionX + "." + regionZ + ".region.bin";
+    }
+}
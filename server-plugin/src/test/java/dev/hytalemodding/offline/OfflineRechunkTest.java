@@ -0,0 +1,80 @@
+package dev.hytalemodding.offline;
+
+import dev.hytalemodding.planning.ChunkRect;
+import dev.hytalemodding.planning.ProtectionPlanner;
+import dev.hytalemodding.planning.WorkArea;
+import dev.hytalemodding.world.chunk.Regions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OfflineRechunkTest {
+
+    @Test
+    void runsAreSplitAtRegionBordersIncludingNegativeOnes() {
+        // Chunks -40..40 of row -1: regions -2, -1, 0 and 1
+        Map<Long, long[]> targets = OfflineRechunk.targets(rows -> rows.accept(-1, -40, 40));
+
+        assertEquals(4, targets.size());
+        assertArrayEquals(bitsOf(-40, -33, -1, -1), targets.get(Regions.key(-2, -1)));
+        assertArrayEquals(bitsOf(-32, -1, -1, -1), targets.get(Regions.key(-1, -1)));
+        assertArrayEquals(bitsOf(0, 31, -1, -1), targets.get(Regions.key(0, -1)));
+        assertArrayEquals(bitsOf(32, 40, -1, -1), targets.get(Regions.key(1, -1)));
+    }
+
+    @Test
+    void fullRegionRowFillsHalfAWord() {
+        Map<Long, long[]> targets = OfflineRechunk.targets(rows -> {
+            rows.accept(0, 0, 31);
+            rows.accept(1, 0, 31);
+        });
+
+        long[] bits = targets.get(Regions.key(0, 0));
+        assertEquals(-1L, bits[0]);
+        for (int i = 1; i < bits.length; i++) assertEquals(0L, bits[i]);
+    }
+
+    @Test
+    void matchesOneBitPerChunkOnRandomPlans() {
+        Random random = new Random(11);
+        for (int round = 0; round < 100; round++) {
+            int x = random.nextInt(200) - 100;
+            int z = random.nextInt(200) - 100;
+            WorkArea work = WorkArea.box(x, z, x + random.nextInt(80), z + random.nextInt(80));
+            List<ChunkRect> protectedAreas = List.of(ChunkRect.around(x + 20, z + 20, random.nextInt(10)));
+            ProtectionPlanner planner = new ProtectionPlanner(protectedAreas, work);
+
+            Map<Long, long[]> expected = new HashMap<>();
+            planner.forEachRow((rowZ, fromX, toX) -> {
+                for (int chunkX = fromX; chunkX <= toX; chunkX++) set(expected, chunkX, rowZ);
+            });
+            Map<Long, long[]> targets = OfflineRechunk.targets(planner::forEachRow);
+
+            assertEquals(expected.keySet(), targets.keySet(), "round " + round);
+            for (Map.Entry<Long, long[]> entry : expected.entrySet()) {
+                assertArrayEquals(entry.getValue(), targets.get(entry.getKey()), "round " + round);
+            }
+        }
+    }
+
+    private static long[] bitsOf(int fromX, int toX, int fromZ, int toZ) {
+        Map<Long, long[]> map = new HashMap<>();
+        for (int x = fromX; x <= toX; x++) {
+            for (int z = fromZ; z <= toZ; z++) set(map, x, z);
+        }
+        assertEquals(1, map.size());
+        return map.values().iterator().next();
+    }
+
+    private static void set(Map<Long, long[]> map, int chunkX, int chunkZ) {
+        long[] bits = map.computeIfAbsent(Regions.key(Regions.regionOf(chunkX), Regions.regionOf(chunkZ)), key -> new long[Regions.CHUNKS_PER_REGION / 64]);
+        int local = Regions.localIndex(chunkX, chunkZ);
+        bits[local >> 6] |= 1L << local;
+    }
+}
@@ -0,0 +1,126 @@
+package dev.hytalemodding.planning;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProtectionPlannerTest {
+
+    @Test
+    void overlappingAndTouchingWorkRectsMergeIntoOneRun() {
+        WorkArea work = () -> List.of(
+                new ChunkRect(0, 0, 4, 0),
+                new ChunkRect(5, 0, 9, 0),   // Touches the first
+                new ChunkRect(2, 0, 12, 0)); // Overlaps both
+
+        List<int[]> rows = rows(new ProtectionPlanner(List.of(), work));
+
+        assertEquals(1, rows.size());
+        assertArrayEquals(new int[] {0, 0, 12}, rows.get(0));
+    }
+
+    @Test
+    void protectedAreasCutHolesAndTrimEdges() {
+        WorkArea work = WorkArea.box(0, 0, 20, 0);
+        List<ChunkRect> protectedAreas = List.of(
+                new ChunkRect(-5, 0, 2, 0),  // Past the left edge
+                new ChunkRect(8, 0, 9, 0),
+                new ChunkRect(10, 0, 11, 0), // Touches the previous hole
+                new ChunkRect(20, 0, 30, 0)); // Past the right edge
+
+        List<int[]> rows = rows(new ProtectionPlanner(protectedAreas, work));
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new int[] {0, 3, 7}, rows.get(0));
+        assertArrayEquals(new int[] {0, 12, 19}, rows.get(1));
+    }
+
+    @Test
+    void fullyProtectedRowsAreSkipped() {
+        WorkArea work = WorkArea.box(-3, -3, 3, 3);
+        List<ChunkRect> protectedAreas = List.of(new ChunkRect(-10, -1, 10, 1));
+
+        long[] plan = new ProtectionPlanner(protectedAreas, work).plan();
+
+        assertEquals(7 * 4, plan.length);
+        for (long chunkIndex : plan) {
+            int z = ChunkUtil.zOfChunkIndex(chunkIndex);
+            assertTrue(z < -1 || z > 1, "z " + z);
+        }
+    }
+
+    @Test
+    void matchesBruteForceOnRandomLayouts() {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            List<ChunkRect> workRects = randomRects(random, 1 + random.nextInt(4));
+            List<ChunkRect> protectedAreas = randomRects(random, random.nextInt(6));
+
+            long[] plan = new ProtectionPlanner(protectedAreas, () -> workRects).plan();
+
+            assertArrayEquals(bruteForce(workRects, protectedAreas), sorted(plan), "round " + round);
+        }
+    }
+
+    @Test
+    void protectingKeepsTheSelectionAndResetsAroundIt() {
+        ChunkArea selected = ChunkArea.of(List.of(new ChunkRect(-1, -1, 0, 0)));
+
+        long[] plan = ProtectionPlanner.protecting(selected, 2).plan();
+
+        assertEquals(6 * 6 - 2 * 2, plan.length);
+        for (long chunkIndex : plan) {
+            int x = ChunkUtil.xOfChunkIndex(chunkIndex);
+            int z = ChunkUtil.zOfChunkIndex(chunkIndex);
+            assertFalse(x >= -1 && x <= 0 && z >= -1 && z <= 0, x + "," + z);
+        }
+    }
+
+    private static List<int[]> rows(ProtectionPlanner planner) {
+        List<int[]> rows = new ArrayList<>();
+        planner.forEachRow((z, fromX, toX) -> rows.add(new int[] {z, fromX, toX}));
+        return rows;
+    }
+
+    private static List<ChunkRect> randomRects(Random random, int count) {
+        List<ChunkRect> rects = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(40) - 20;
+            int z = random.nextInt(40) - 20;
+            rects.add(new ChunkRect(x, z, x + random.nextInt(15), z + random.nextInt(15)));
+        }
+        return rects;
+    }
+
+    private static long[] bruteForce(List<ChunkRect> work, List<ChunkRect> protectedAreas) {
+        List<Long> chunks = new ArrayList<>();
+        for (int x = -25; x <= 40; x++) {
+            for (int z = -25; z <= 40; z++) {
+                if (anyContains(work, x, z) && !anyContains(protectedAreas, x, z)) chunks.add(ChunkUtil.indexChunk(x, z));
+            }
+        }
+        return sorted(chunks.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private static boolean anyContains(List<ChunkRect> rects, int x, int z) {
+        for (ChunkRect rect : rects) {
+            if (rect.contains(x, z)) return true;
+        }
+        return false;
+    }
+
+    private static long[] sorted(long[] chunks) {
+        long[] copy = chunks.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
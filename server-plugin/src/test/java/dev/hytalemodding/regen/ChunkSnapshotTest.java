@@ -0,0 +1,162 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        ChunkSnapshot.setDirectory(directory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ChunkSnapshot.setDirectory(null);
+    }
+
+    @Test
+    void capturedChunksComeBackInOrder() throws IOException {
+        MemoryBackend backend = new MemoryBackend();
+        Random random = new Random(1);
+        byte[] ocean = new byte[20_000]; // Compresses well and repeats
+        for (int i = 0; i < 50; i++) {
+            byte[] data;
+            if (i % 3 == 0) {
+                data = ocean;
+            } else {
+                data = new byte[1 + random.nextInt(5000)];
+                random.nextBytes(data);
+            }
+            backend.chunks.put(ChunkUtil.indexChunk(i - 25, -i), data);
+        }
+        String jobId = "0123abcd";
+
+        try (ChunkSnapshot snapshot = ChunkSnapshot.create(jobId, "default")) {
+            for (long chunkIndex : backend.chunks.keySet()) snapshot.capture(backend, chunkIndex).join();
+            // Never stored: nothing to keep
+            snapshot.capture(backend, ChunkUtil.indexChunk(1000, 1000)).join();
+        }
+
+        assertTrue(ChunkSnapshot.exists(jobId));
+        assertEquals("default", ChunkSnapshot.worldOf(jobId));
+        assertArrayEquals(backend.chunks.keySet().stream().mapToLong(Long::longValue).toArray(), ChunkSnapshot.chunksOf(jobId));
+
+        Map<Long, byte[]> restored = new LinkedHashMap<>();
+        ChunkSnapshot.forEachChunk(jobId, restored::put);
+        assertEquals(backend.chunks.keySet(), restored.keySet());
+        for (Map.Entry<Long, byte[]> entry : backend.chunks.entrySet()) {
+            assertArrayEquals(entry.getValue(), restored.get(entry.getKey()));
+        }
+
+        // The repeated chunk is stored once
+        assertTrue(ChunkSnapshot.sizeOf(jobId) < 50 * 5000L);
+    }
+
+    @Test
+    void reopenDropsATornIndexEntryAndKeepsAppending() throws IOException {
+        MemoryBackend backend = new MemoryBackend();
+        backend.chunks.put(ChunkUtil.indexChunk(0, 0), new byte[] {1, 2, 3});
+        backend.chunks.put(ChunkUtil.indexChunk(-1, 5), new byte[] {4, 5});
+        String jobId = "0123abcd";
+
+        try (ChunkSnapshot snapshot = ChunkSnapshot.create(jobId, "world")) {
+            snapshot.capture(backend, ChunkUtil.indexChunk(0, 0)).join();
+        }
+        try (FileChannel index = FileChannel.open(directory.resolve(jobId).resolve("index.bin"), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            index.write(ByteBuffer.wrap(new byte[] {9, 9, 9, 9, 9}));
+        }
+
+        try (ChunkSnapshot snapshot = ChunkSnapshot.reopen(jobId)) {
+            snapshot.capture(backend, ChunkUtil.indexChunk(-1, 5)).join();
+        }
+
+        Map<Long, byte[]> restored = new HashMap<>();
+        ChunkSnapshot.forEachChunk(jobId, restored::put);
+        assertEquals(2, restored.size());
+        assertArrayEquals(new byte[] {1, 2, 3}, restored.get(ChunkUtil.indexChunk(0, 0)));
+        assertArrayEquals(new byte[] {4, 5}, restored.get(ChunkUtil.indexChunk(-1, 5)));
+    }
+
+    @Test
+    void deleteRemovesTheSnapshot() throws IOException {
+        String jobId = "0123abcd";
+        ChunkSnapshot.create(jobId, "world").close();
+        assertEquals(List.of(jobId), ChunkSnapshot.list());
+
+        ChunkSnapshot.delete(jobId);
+
+        assertFalse(ChunkSnapshot.exists(jobId));
+        assertTrue(ChunkSnapshot.list().isEmpty());
+    }
+
+    // Chunks held in memory; only read is used by snapshots
+    private static class MemoryBackend implements ChunkBackend {
+
+        final Map<Long, byte[]> chunks = new LinkedHashMap<>();
+
+        @Override
+        public CompletableFuture<Void> load(long chunkIndex) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void unload(long chunkIndex) {}
+
+        @Override
+        public CompletableFuture<Void> remove(int chunkX, int chunkZ) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<byte[]> read(int chunkX, int chunkZ) {
+            return CompletableFuture.completedFuture(chunks.get(ChunkUtil.indexChunk(chunkX, chunkZ)));
+        }
+
+        @Override
+        public CompletableFuture<Void> write(int chunkX, int chunkZ, byte[] data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public boolean isLoaded(long chunkIndex) {
+            return false;
+        }
+
+        @Override
+        public boolean hasRegion(int regionX, int regionZ) {
+            return true;
+        }
+
+        @Override
+        public long[] storedChunks(int regionX, int regionZ) {
+            return null;
+        }
+    }
+}
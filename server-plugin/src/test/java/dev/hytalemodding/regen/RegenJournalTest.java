@@ -0,0 +1,126 @@
+package dev.hytalemodding.regen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import dev.hytalemodding.world.chunk.ChunkOrder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegenJournalTest {
+
+    private static final long[] PLANNED = {
+            ChunkUtil.indexChunk(0, 0), ChunkUtil.indexChunk(1, 0), ChunkUtil.indexChunk(-1, -1),
+            ChunkUtil.indexChunk(40, -40), ChunkUtil.indexChunk(-33, 7)
+    };
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        RegenJournal.setDirectory(directory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RegenJournal.setDirectory(null);
+    }
+
+    @Test
+    void headerOptionsAndCompleteBatchesSurviveARestart() throws IOException {
+        UUID owner = UUID.randomUUID();
+        RegenJournal.Options options = new RegenJournal.Options(owner, ChunkOrder.MORTON, PlayerPriority.NEAREST_FIRST, true);
+        try (RegenJournal journal = RegenJournal.create("job1", "world", options, PLANNED)) {
+            journal.recordBatch(new long[] {PLANNED[0], PLANNED[2]});
+            journal.recordBatch(new long[] {PLANNED[3]});
+        }
+
+        RegenJournal.PendingJob job = single(RegenJournal.loadPending());
+
+        assertEquals("job1", job.jobId());
+        assertEquals("world", job.worldName());
+        assertEquals(options, job.options());
+        assertArrayEquals(sorted(PLANNED[0], PLANNED[2], PLANNED[3]), sorted(job.removed()));
+        assertArrayEquals(sorted(PLANNED[1], PLANNED[4]), sorted(job.remaining()));
+        assertEquals(Files.size(job.file()), job.validLength());
+    }
+
+    @Test
+    void tornLastBatchIsNotCountedAndTruncatedOnReopen() throws IOException {
+        RegenJournal.Options options = new RegenJournal.Options(null, ChunkOrder.REGION, PlayerPriority.NEAREST_LAST, false);
+        try (RegenJournal journal = RegenJournal.create("job2", "world", options, PLANNED)) {
+            journal.recordBatch(new long[] {PLANNED[1]});
+        }
+        Path file = directory.resolve("job2.journal");
+        long complete = Files.size(file);
+
+        // A batch of three whose chunks only partly reached the disk
+        ByteBuffer torn = ByteBuffer.allocate(5 + 12).put((byte) 1).putInt(3).putLong(PLANNED[0]).putInt(0).flip();
+        Files.write(file, Arrays.copyOf(torn.array(), torn.limit()), StandardOpenOption.APPEND);
+
+        RegenJournal.PendingJob job = single(RegenJournal.loadPending());
+        assertEquals(null, job.options().owner());
+        assertArrayEquals(new long[] {PLANNED[1]}, job.removed());
+        assertEquals(PLANNED.length - 1, job.remaining().length);
+        assertEquals(complete, job.validLength());
+
+        // Appending after the reopen continues from the last complete record
+        try (RegenJournal journal = RegenJournal.reopen(job)) {
+            journal.recordBatch(new long[] {PLANNED[4]});
+        }
+        RegenJournal.PendingJob resumed = single(RegenJournal.loadPending());
+        assertArrayEquals(sorted(PLANNED[1], PLANNED[4]), sorted(resumed.removed()));
+        assertEquals(Files.size(file), resumed.validLength());
+    }
+
+    @Test
+    void unreadableJournalsAreSkipped() throws IOException {
+        Files.write(directory.resolve("garbage.journal"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        Files.write(directory.resolve("empty.journal"), new byte[0]);
+
+        RegenJournal.Options options = new RegenJournal.Options(null, ChunkOrder.REGION, PlayerPriority.IGNORE, false);
+        RegenJournal.create("job3", "world", options, PLANNED).close();
+
+        // Header cut off in the middle of the planned chunks
+        Path cut = directory.resolve("cut.journal");
+        byte[] bytes = Files.readAllBytes(directory.resolve("job3.journal"));
+        Files.write(cut, Arrays.copyOf(bytes, bytes.length - 4));
+
+        RegenJournal.PendingJob job = single(RegenJournal.loadPending());
+        assertEquals("job3", job.jobId());
+    }
+
+    @Test
+    void deleteLeavesNothingToResume() throws IOException {
+        RegenJournal.Options options = new RegenJournal.Options(null, ChunkOrder.REGION, PlayerPriority.NEAREST_LAST, false);
+        RegenJournal journal = RegenJournal.create("job4", "world", options, PLANNED);
+        journal.delete();
+
+        assertTrue(RegenJournal.loadPending().isEmpty());
+    }
+
+    private static RegenJournal.PendingJob single(List<RegenJournal.PendingJob> pending) {
+        assertEquals(1, pending.size());
+        return pending.get(0);
+    }
+
+    private static long[] sorted(long... chunks) {
+        long[] copy = chunks.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,99 @@
+package dev.hytalemodding.world.chunk;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChunkOrderTest {
+
+    // Chunk coordinates of block coordinates within +-30,000,000, the page's limit
+    private static final int MAX_CHUNK = 30_000_000 >> 5;
+
+    @Test
+    void sortKeepsEveryChunkIncludingNegativeCoordinates() {
+        long[] chunks = {
+                ChunkUtil.indexChunk(0, 0),
+                ChunkUtil.indexChunk(-1, -1),
+                ChunkUtil.indexChunk(-1, 0),
+                ChunkUtil.indexChunk(31, -32),
+                ChunkUtil.indexChunk(-33, 32),
+                ChunkUtil.indexChunk(-MAX_CHUNK, MAX_CHUNK),
+                ChunkUtil.indexChunk(MAX_CHUNK, -MAX_CHUNK),
+                ChunkUtil.indexChunk(-MAX_CHUNK, -MAX_CHUNK),
+        };
+
+        for (ChunkOrder order : ChunkOrder.values()) {
+            long[] sorted = order.sort(chunks.clone());
+            assertArrayEquals(sortedCopy(chunks), sortedCopy(sorted), order.name());
+        }
+    }
+
+    @Test
+    void randomChunksSurviveEncodeAndDecode() {
+        Random random = new Random(7);
+        long[] chunks = new long[10_000];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ChunkUtil.indexChunk(random.nextInt(2 * MAX_CHUNK + 1) - MAX_CHUNK, random.nextInt(2 * MAX_CHUNK + 1) - MAX_CHUNK);
+        }
+
+        for (ChunkOrder order : ChunkOrder.values()) {
+            assertArrayEquals(sortedCopy(chunks), sortedCopy(order.sort(chunks.clone())), order.name());
+        }
+    }
+
+    @Test
+    void regionOrderGroupsRegionsAndFollowsTheirFileLayout() {
+        long[] chunks = {
+                ChunkUtil.indexChunk(32, 0),  // region 1,0
+                ChunkUtil.indexChunk(1, 0),   // region 0,0 local 1
+                ChunkUtil.indexChunk(0, -1),  // region 0,-1
+                ChunkUtil.indexChunk(0, 1),   // region 0,0 local 32
+                ChunkUtil.indexChunk(-1, 0),  // region -1,0
+                ChunkUtil.indexChunk(0, 0),   // region 0,0 local 0
+        };
+
+        long[] sorted = ChunkOrder.REGION.sort(chunks);
+
+        assertArrayEquals(new long[] {
+                ChunkUtil.indexChunk(0, -1),
+                ChunkUtil.indexChunk(-1, 0),
+                ChunkUtil.indexChunk(0, 0),
+                ChunkUtil.indexChunk(1, 0),
+                ChunkUtil.indexChunk(0, 1),
+                ChunkUtil.indexChunk(32, 0),
+        }, sorted);
+    }
+
+    @Test
+    void mortonOrderKeepsEachRegionTogether() {
+        long[] chunks = new long[4 * Regions.CHUNKS_PER_REGION];
+        int i = 0;
+        for (int x = -32; x < 32; x++) {
+            for (int z = -32; z < 32; z++) chunks[i++] = ChunkUtil.indexChunk(x, z);
+        }
+
+        long[] sorted = ChunkOrder.MORTON.sort(chunks);
+
+        // Four regions, each one contiguous run
+        int runs = 1;
+        for (int j = 1; j < sorted.length; j++) {
+            if (regionOf(sorted[j]) != regionOf(sorted[j - 1])) runs++;
+        }
+        assertEquals(4, runs);
+    }
+
+    private static long regionOf(long chunkIndex) {
+        return Regions.key(Regions.regionOf(ChunkUtil.xOfChunkIndex(chunkIndex)), Regions.regionOf(ChunkUtil.zOfChunkIndex(chunkIndex)));
+    }
+
+    private static long[] sortedCopy(long[] chunks) {
+        long[] copy = chunks.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
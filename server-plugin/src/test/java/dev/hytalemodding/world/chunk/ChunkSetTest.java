@@ -0,0 +1,80 @@
+package dev.hytalemodding.world.chunk;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkSetTest {
+
+    @Test
+    void removeKeepsProbeChainsIntact() {
+        // A dense block in a small table: long probe chains that wrap around
+        ChunkSet set = new ChunkSet(16);
+        Set<Long> expected = new HashSet<>();
+        for (int x = -8; x < 8; x++) {
+            for (int z = -8; z < 8; z++) {
+                set.add(x, z);
+                expected.add(ChunkUtil.indexChunk(x, z));
+            }
+        }
+
+        // Every other chunk leaves a gap in the middle of some chain
+        for (int x = -8; x < 8; x++) {
+            for (int z = -8; z < 8; z += 2) {
+                assertTrue(set.remove(ChunkUtil.indexChunk(x, z)));
+                expected.remove(ChunkUtil.indexChunk(x, z));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (int x = -8; x < 8; x++) {
+            for (int z = -8; z < 8; z++) {
+                assertEquals(expected.contains(ChunkUtil.indexChunk(x, z)), set.contains(x, z), x + "," + z);
+            }
+        }
+    }
+
+    @Test
+    void matchesHashSetUnderRandomAddsAndRemoves() {
+        Random random = new Random(42);
+        ChunkSet set = new ChunkSet();
+        Set<Long> expected = new HashSet<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            // Small coordinate range so the same chunks come back often
+            long chunkIndex = ChunkUtil.indexChunk(random.nextInt(64) - 32, random.nextInt(64) - 32);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(chunkIndex), set.remove(chunkIndex));
+            } else {
+                assertEquals(expected.add(chunkIndex), set.add(chunkIndex));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long chunkIndex : expected) assertTrue(set.contains(chunkIndex));
+        Set<Long> listed = new HashSet<>();
+        set.forEach(listed::add);
+        assertEquals(expected, listed);
+    }
+
+    @Test
+    void chunkZeroIsTrackedOutsideTheTable() {
+        ChunkSet set = new ChunkSet();
+        assertFalse(set.contains(0, 0));
+        assertTrue(set.add(0, 0));
+        assertFalse(set.add(0, 0));
+        assertTrue(set.contains(0L));
+        assertEquals(1, set.toArray().length);
+
+        assertTrue(set.remove(0L));
+        assertFalse(set.remove(0L));
+        assertTrue(set.isEmpty());
+    }
+}